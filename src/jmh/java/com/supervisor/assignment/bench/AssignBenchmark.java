@@ -0,0 +1,57 @@
+package com.supervisor.assignment.bench;
+
+import com.supervisor.assignment.logic.AssignmentEngine;
+import com.supervisor.assignment.model.*;
+import com.supervisor.assignment.template.ScenarioGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link AssignmentEngine#assign} over {@link ScenarioGenerator} inputs. The full
+ * matrix is large; narrow it on the command line, for example
+ * {@code java -jar target/benchmarks.jar AssignBenchmark -p sessions=20000 -p supervisors=500 -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AssignBenchmark {
+	@Param({"200", "2000", "20000", "100000"})
+	public int sessions;
+
+	@Param({"50", "500", "5000"})
+	public int supervisors;
+
+	@Param({"CONSECUTIVE", "BREAK", "MIXED"})
+	public SchedulingMode mode;
+
+	// Share of the subjects each supervisor may not invigilate
+	@Param({"0.0", "0.1"})
+	public double exclusionDensity;
+
+	private List<SubjectSession> sessionList;
+	private List<Supervisor> supervisorList;
+	private Config config;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		ScenarioGenerator generator = new ScenarioGenerator();
+		generator.setSessions(sessions);
+		generator.setSupervisors(supervisors);
+		generator.setExclusionRate(exclusionDensity);
+		ScenarioGenerator.Scenario scenario = generator.generate();
+		sessionList = scenario.sessions;
+		supervisorList = scenario.supervisors;
+		config = new Config();
+		config.setSchedulingMode(mode);
+	}
+
+	@Benchmark
+	public AssignmentResult assign() {
+		return new AssignmentEngine().assign(sessionList, supervisorList, config);
+	}
+}
@@ -1,17 +1,28 @@
 package com.supervisor.assignment.cli;
 
 import com.supervisor.assignment.io.ExcelReaderWriter;
+import com.supervisor.assignment.io.WorkbookPipeline;
 import com.supervisor.assignment.logic.AssignmentEngine;
 import com.supervisor.assignment.model.AssignmentResult;
 import com.supervisor.assignment.model.Config;
+import com.supervisor.assignment.model.RepairDelta;
+import com.supervisor.assignment.model.SolveStats;
+import com.supervisor.assignment.model.SubjectSession;
 import com.supervisor.assignment.template.TemplateGenerator;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class CliRunner {
     public static void main(String[] args) throws Exception {
         if (args.length < 1) {
-            System.out.println("Usage:\n  template <output.xlsx>\n  assign <input.xlsx> <output.xlsx>");
+            System.out.println("Usage:\n  template <output.xlsx>\n  assign <input.xlsx> <output.xlsx> [--preserve-manual] [--evaluate-formulas] [--pdf <output.pdf>]\n  repair <earlier output.xlsx> <output.xlsx> <absent supervisor>...\n  pdf <input.xlsx> <output.pdf>");
             System.exit(1);
         }
         String cmd = args[0];
@@ -31,21 +42,87 @@ public class CliRunner {
                 System.out.println("Template written: " + out.getAbsolutePath());
                 break;
             case "assign":
-                if (args.length != 3) {
-                    System.err.println("Usage: assign <input.xlsx> <output.xlsx>");
+                boolean preserveManual = false;
+                boolean evaluateFormulas = false;
+                File pdfFile = null;
+                boolean usageOk = args.length >= 3;
+                for (int i = 3; i < args.length && usageOk; i++) {
+                    if ("--preserve-manual".equals(args[i])) preserveManual = true;
+                    else if ("--evaluate-formulas".equals(args[i])) evaluateFormulas = true;
+                    else if ("--pdf".equals(args[i]) && i + 1 < args.length) pdfFile = new File(args[++i]);
+                    else usageOk = false;
+                }
+                if (!usageOk) {
+                    System.err.println("Usage: assign <input.xlsx> <output.xlsx> [--preserve-manual] [--evaluate-formulas] [--pdf <output.pdf>]");
                     System.exit(2);
                 }
                 File inFile = new File(args[1]);
                 File outFile = new File(args[2]);
-                ExcelReaderWriter rw = new ExcelReaderWriter();
-                ExcelReaderWriter.ParsedInput pi = rw.readWorkbook(inFile);
-                AssignmentEngine engine = new AssignmentEngine();
-                AssignmentResult result = engine.assign(pi.sessions, pi.supervisors, pi.config);
-                rw.writeOutput(inFile, outFile, result);
+                AssignmentResult result;
+                try (WorkbookPipeline pipeline = new WorkbookPipeline(inFile)) {
+                    // With --preserve-manual the input is an earlier output whose assignments were edited by hand
+                    pipeline.setReadAssignments(preserveManual);
+                    pipeline.setEvaluateFormulas(evaluateFormulas);
+                    pipeline.setXlsxOutput(outFile);
+                    pipeline.setPdfOutput(pdfFile);
+                    result = pipeline.solve(new AssignmentEngine());
+                    pipeline.write(result);
+                    printUnmatchedColumns(pipeline.read());
+                }
                 System.out.println("Assigned: " + result.getSessionAssignments().stream().filter(a -> "Assigned".equals(a.getStatus())).count());
                 System.out.println("Partial: " + result.getSessionAssignments().stream().filter(a -> "PartiallyAssigned".equals(a.getStatus())).count());
                 System.out.println("Unassigned: " + result.getSessionAssignments().stream().filter(a -> "Unassigned".equals(a.getStatus())).count());
+                printStats(result.getSolveStats());
                 System.out.println("Output: " + outFile.getAbsolutePath());
+                if (pdfFile != null) System.out.println("PDF: " + pdfFile.getAbsolutePath());
+                break;
+            case "repair":
+                if (args.length < 4) {
+                    System.err.println("Usage: repair <earlier output.xlsx> <output.xlsx> <absent supervisor>...");
+                    System.exit(2);
+                }
+                File repairIn = new File(args[1]);
+                File repairOut = new File(args[2]);
+                AssignmentResult repaired;
+                Map<String, List<String>> before = new HashMap<>();
+                Map<String, List<String>> after = new HashMap<>();
+                try (WorkbookPipeline pipeline = new WorkbookPipeline(repairIn)) {
+                    // The input is an earlier output; its assignments sheet is the schedule already handed out
+                    pipeline.setReadAssignments(true);
+                    pipeline.setXlsxOutput(repairOut);
+                    ExcelReaderWriter.ParsedInput pi3 = pipeline.read();
+                    if (pi3.assignments == null) {
+                        System.err.println("repair needs an earlier output with its assignments sheet: " + repairIn);
+                        System.exit(2);
+                    }
+                    RepairDelta delta = new RepairDelta();
+                    delta.getRemovedSupervisors().addAll(Arrays.asList(args).subList(3, args.length));
+                    repaired = new AssignmentEngine().repair(pi3.assignments, pi3.sessions, pi3.supervisors, pi3.config, delta);
+                    Set<SubjectSession> inputs = Collections.newSetFromMap(new IdentityHashMap<>());
+                    inputs.addAll(pi3.sessions);
+                    for (AssignmentResult.SessionAssignment sa : pi3.assignments.getSessionAssignments()) {
+                        before.put(AssignmentEngine.slotKey(sa.getSession(), inputs.contains(sa.getSession())), sa.getAssignedSupervisors());
+                    }
+                    for (AssignmentResult.SessionAssignment sa : repaired.getSessionAssignments()) {
+                        after.put(AssignmentEngine.slotKey(sa.getSession(), inputs.contains(sa.getSession())), sa.getAssignedSupervisors());
+                    }
+                    pipeline.write(repaired);
+                    printUnmatchedColumns(pi3);
+                }
+                // Sessions are matched by the key the repair uses, so a slot that moved in the list still compares with itself
+                int changed = 0;
+                for (Map.Entry<String, List<String>> e : after.entrySet()) {
+                    if (!e.getValue().equals(before.getOrDefault(e.getKey(), Collections.emptyList()))) changed++;
+                }
+                int dropped = 0;
+                for (String key : before.keySet()) {
+                    if (!after.containsKey(key)) dropped++;
+                }
+                System.out.println("Sessions changed: " + changed);
+                System.out.println("Slots dropped: " + dropped);
+                System.out.println("Partial: " + repaired.getSessionAssignments().stream().filter(a -> "PartiallyAssigned".equals(a.getStatus())).count());
+                System.out.println("Unassigned: " + repaired.getSessionAssignments().stream().filter(a -> "Unassigned".equals(a.getStatus())).count());
+                System.out.println("Output: " + repairOut.getAbsolutePath());
                 break;
             case "pdf":
                 if (args.length != 3) {
@@ -54,11 +131,10 @@ public class CliRunner {
                 }
                 File inXlsx = new File(args[1]);
                 File outPdf = new File(args[2]);
-                ExcelReaderWriter rw2 = new ExcelReaderWriter();
-                ExcelReaderWriter.ParsedInput pi2 = rw2.readWorkbook(inXlsx);
-                AssignmentEngine engine2 = new AssignmentEngine();
-                AssignmentResult result2 = engine2.assign(pi2.sessions, pi2.supervisors, pi2.config);
-                new com.supervisor.assignment.io.PdfExporter().exportArabic(outPdf, result2);
+                try (WorkbookPipeline pipeline = new WorkbookPipeline(inXlsx)) {
+                    pipeline.setPdfOutput(outPdf);
+                    pipeline.write(pipeline.solve(new AssignmentEngine()));
+                }
                 System.out.println("PDF: " + outPdf.getAbsolutePath());
                 break;
             default:
@@ -66,6 +142,35 @@ public class CliRunner {
                 System.exit(3);
         }
     }
+
+    private static void printUnmatchedColumns(ExcelReaderWriter.ParsedInput pi) {
+        for (Map.Entry<String, List<String>> e : pi.unmatchedColumns.entrySet()) {
+            System.out.println("Ignored columns in " + e.getKey() + ": " + String.join(", ", e.getValue()));
+        }
+    }
+
+    private static void printStats(SolveStats stats) {
+        if (stats == null) return;
+        System.out.println(String.format(java.util.Locale.US, "Solve: %.1f ms", stats.getElapsedMillis()));
+        for (SolveStats.PhaseStats ps : stats.getPhases()) {
+            String bytes = ps.getAllocatedBytes() < 0 ? "n/a" : Long.toString(ps.getAllocatedBytes() / 1024) + " KiB";
+            System.out.println(String.format(java.util.Locale.US, "  %-18s %10.2f ms %14s", ps.getPhase(), ps.getWallMillis(), bytes));
+        }
+        System.out.println("Slots processed: " + stats.getSlotsProcessed());
+        System.out.println("Candidates scanned: " + stats.getCandidatesScanned());
+        System.out.println("Relaxed availability fallbacks: " + stats.getRelaxedAvailabilityFallbacks());
+        System.out.println("Backfills: " + stats.getBackfills());
+        System.out.println("Auto backfills: " + stats.getAutoBackfills());
+        if (stats.getRuns() > 1) {
+            System.out.println("All " + stats.getRuns() + " runs: slots processed " + stats.getAllRunsSlotsProcessed()
+                + ", candidates scanned " + stats.getAllRunsCandidatesScanned());
+        }
+        System.out.println("Candidate pool sizes:");
+        long[] pools = stats.getCandidatePoolSizes();
+        for (int i = 0; i < pools.length; i++) {
+            if (pools[i] > 0) System.out.println(String.format(java.util.Locale.US, "  %-12s %d", SolveStats.poolSizeLabel(i), pools[i]));
+        }
+    }
 }
 
 
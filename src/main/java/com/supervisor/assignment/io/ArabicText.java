@@ -0,0 +1,27 @@
+package com.supervisor.assignment.io;
+
+import java.util.Locale;
+
+/**
+ * Spelling-insensitive form of Arabic and Latin text, shared by header matching and the launcher's
+ * search so both treat the same variants as equal.
+ */
+public final class ArabicText {
+	private ArabicText() {
+	}
+
+	/**
+	 * Lower case, hamza and madda on alef folded to bare alef, alef maqsura to ya, ta marbuta to ha,
+	 * tatweel removed; null becomes the empty string.
+	 */
+	public static String normalize(String s) {
+		if (s == null) return "";
+		String t = s.toLowerCase(Locale.ROOT);
+		t = t.replace('\u0623', '\u0627') // أ -> ا
+			.replace('\u0625', '\u0627') // إ -> ا
+			.replace('\u0622', '\u0627') // آ -> ا
+			.replace('\u0649', '\u064a') // ى -> ي
+			.replace('\u0629', '\u0647'); // ة -> ه
+		return t.replace("\u0640", ""); // tatweel
+	}
+}
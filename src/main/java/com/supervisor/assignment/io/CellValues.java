@@ -0,0 +1,109 @@
+package com.supervisor.assignment.io;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Year;
+
+/**
+ * Decoding of date and time cells without formatters or exceptions. Serial numbers convert as
+ * {@code DateUtil.getJavaDate} does; text is scanned for the layouts the reader accepts, and a value
+ * that does not fit comes back as null for the caller to report.
+ */
+final class CellValues {
+	private static final int DAY_MILLIS = 24 * 60 * 60 * 1000;
+	private static final LocalDate EPOCH_1900 = LocalDate.of(1900, 1, 1);
+	private static final LocalDate EPOCH_1904 = LocalDate.of(1904, 1, 1);
+
+	private CellValues() {
+	}
+
+	/** The local date and time of a date-formatted serial number, with Excel's 29/2/1900. */
+	static LocalDateTime excelDateTime(double serial, boolean date1904) {
+		int days = (int) Math.floor(serial);
+		int millis = (int) ((serial - days) * DAY_MILLIS + 0.5);
+		LocalDate date = date1904 ? EPOCH_1904.plusDays(days) : EPOCH_1900.plusDays(days < 61 ? days - 1 : days - 2);
+		if (millis >= DAY_MILLIS) { // rounded up to the next midnight
+			date = date.plusDays(1);
+			millis -= DAY_MILLIS;
+		}
+		return date.atTime(LocalTime.ofNanoOfDay(millis * 1_000_000L));
+	}
+
+	/** yyyy-MM-dd, d-M-yyyy or d/M/yyyy; an out-of-range day of the latter two is clamped to the month's end. */
+	static LocalDate parseDate(String s) {
+		String t = s.trim();
+		int n = t.length();
+		int e1 = digits(t, 0);
+		if (e1 == 0 || e1 == n) return null;
+		char sep = t.charAt(e1);
+		if (sep != '-' && sep != '/') return null;
+		int e2 = digits(t, e1 + 1);
+		if (e2 == e1 + 1 || e2 == n || t.charAt(e2) != sep) return null;
+		int e3 = digits(t, e2 + 1);
+		if (e3 == e2 + 1 || e3 != n) return null;
+		long first = value(t, 0, e1), second = value(t, e1 + 1, e2), third = value(t, e2 + 1, e3);
+		if (sep == '-' && e1 == 4 && e2 - e1 == 3 && e3 - e2 == 3) {
+			if (second < 1 || second > 12 || third < 1 || third > monthLength((int) first, (int) second)) return null;
+			return LocalDate.of((int) first, (int) second, (int) third);
+		}
+		if (e3 - e2 != 5 || first < 1 || first > 31 || second < 1 || second > 12) return null;
+		return LocalDate.of((int) third, (int) second, Math.min((int) first, monthLength((int) third, (int) second)));
+	}
+
+	/** h:mm AM / h:mm PM, in either case. */
+	static LocalTime parseClockTime(String s) {
+		String t = s.trim();
+		int n = t.length();
+		int e = digits(t, 0);
+		if (e == 0 || e + 6 != n || t.charAt(e) != ':' || t.charAt(e + 3) != ' ') return null;
+		if (digits(t, e + 1) != e + 3) return null;
+		long hour = value(t, 0, e);
+		int minute = (int) value(t, e + 1, e + 3);
+		char m = Character.toUpperCase(t.charAt(n - 2));
+		if (hour > 12 || minute > 59 || Character.toUpperCase(t.charAt(n - 1)) != 'M') return null;
+		if (m != 'A' && m != 'P') return null;
+		return LocalTime.of((int) (hour % 12) + (m == 'P' ? 12 : 0), minute);
+	}
+
+	/** HH:mm[:ss[.fraction]], a single-digit hour allowed in the short form. */
+	static LocalTime parseIsoTime(String s) {
+		String t = s.trim();
+		if (t.length() == 4) t = "0" + t;
+		int n = t.length();
+		if (n < 5 || digits(t, 0) != 2 || t.charAt(2) != ':' || digits(t, 3) != 5) return null;
+		int hour = (int) value(t, 0, 2), minute = (int) value(t, 3, 5), second = 0, nano = 0;
+		int i = 5;
+		if (i < n) {
+			if (t.charAt(i) != ':' || digits(t, i + 1) != i + 3) return null;
+			second = (int) value(t, i + 1, i + 3);
+			i += 3;
+			if (i < n) {
+				int e = digits(t, i + 1);
+				if (t.charAt(i) != '.' || e != n || e - i - 1 > 9) return null;
+				nano = (int) value(t, i + 1, e);
+				for (int k = e - i - 1; k < 9; k++) nano *= 10;
+			}
+		}
+		if (hour > 23 || minute > 59 || second > 59) return null;
+		return LocalTime.of(hour, minute, second, nano);
+	}
+
+	// End of the run of ASCII digits starting at from
+	private static int digits(String t, int from) {
+		int i = from;
+		while (i < t.length() && t.charAt(i) >= '0' && t.charAt(i) <= '9') i++;
+		return i;
+	}
+
+	// Saturates rather than overflows, so an absurdly long run is simply out of range
+	private static long value(String t, int from, int to) {
+		long v = 0;
+		for (int i = from; i < to; i++) v = Math.min(v * 10 + (t.charAt(i) - '0'), Integer.MAX_VALUE);
+		return v;
+	}
+
+	private static int monthLength(int year, int month) {
+		return month == 2 ? (Year.isLeap(year) ? 29 : 28) : (month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31);
+	}
+}
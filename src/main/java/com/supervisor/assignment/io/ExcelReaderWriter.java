@@ -1,16 +1,20 @@
 package com.supervisor.assignment.io;
 
 import com.supervisor.assignment.model.*;
+import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCell;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.apache.poi.ss.util.CellRangeAddress;
 
 import java.io.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ForkJoinTask;
 
 public class ExcelReaderWriter {
 
@@ -18,64 +22,255 @@ public class ExcelReaderWriter {
 		public List<SubjectSession> sessions;
 		public List<Supervisor> supervisors;
 		public Config config;
+		public AssignmentResult assignments; // partial assignment read back from an output workbook, if requested
+		public Map<String, List<String>> unmatchedColumns = new LinkedHashMap<>(); // sheet -> headers no field reads
 	}
 
+	private static final List<String> SUBJECT_SHEETS = Arrays.asList("المواد", "Subjects");
+	private static final List<String> SUPERVISOR_SHEETS = Arrays.asList("المراقبون", "المشرفون", "Supervisors");
+	private static final List<String> ASSIGNMENT_SHEETS = Arrays.asList("التعيينات", "Assignments");
+	private static final List<String> TOTALS_SHEETS = Arrays.asList("إجمالي المراقبين", "Supervisor Totals");
+	private static final List<String> SCHEDULE_SHEETS = Arrays.asList("جداول المراقبين");
+	private static final List<String> LOG_SHEETS = Arrays.asList("Logs");
+	private static final List<String> STATS_SHEETS = Arrays.asList("Solve Stats");
+	private static final List<String> BACKUP_SHEETS = Arrays.asList("الاحتياط");
+	private static final int HEADER_SEARCH_ROWS = 50;
+	private static final int OUTPUT_ROW_WINDOW = 200;
+
+	private boolean evaluateFormulas;
+
 	public ParsedInput readWorkbook(File file) throws IOException {
-		try (InputStream in = new FileInputStream(file); XSSFWorkbook wb = new XSSFWorkbook(in)) {
+		return readWorkbook(file, false);
+	}
+
+	/**
+	 * Reads the input sheets and, with {@code readAssignments}, the assignments sheet of an earlier
+	 * output as a seed for {@link com.supervisor.assignment.logic.AssignmentEngine#assign(List, List, Config, AssignmentResult)};
+	 * manual overrides are then preserved. Sheets are streamed, so memory does not grow with their length;
+	 * only a formula saved without its result, with {@link #setEvaluateFormulas} on, loads the workbook.
+	 */
+	public ParsedInput readWorkbook(File file, boolean readAssignments) throws IOException {
+		OPCPackage pkg = StreamingSheetReader.open(file);
+		try {
+			return readWorkbook(pkg, readAssignments);
+		} finally {
+			pkg.revert();
+		}
+	}
+
+	/** As {@link #readWorkbook(File, boolean)}, from a package already open; the package stays open. */
+	public ParsedInput readWorkbook(OPCPackage pkg, boolean readAssignments) throws IOException {
+		try (StreamingSheetReader reader = new StreamingSheetReader(pkg)) {
+			reader.setStopAtUncachedFormula(evaluateFormulas);
 			ParsedInput pi = new ParsedInput();
 			pi.config = new Config();
-			pi.sessions = readSubjects(wb, pi.config);
-			pi.supervisors = readSupervisors(wb);
+			SubjectRows subjects = new SubjectRows(pi.config);
+			if (!reader.readSheet(SUBJECT_SHEETS, subjects)) throw new IllegalArgumentException("Missing 'Subjects/المواد' sheet");
+			SupervisorRows supervisors = new SupervisorRows();
+			boolean found;
+			try {
+				found = reader.readSheet(SUPERVISOR_SHEETS, supervisors);
+			} catch (IOException | RuntimeException e) {
+				subjects.finish(pi); // an error among the subjects is still the one reported
+				throw e;
+			}
+			pi.sessions = subjects.finish(pi);
+			if (!found) throw new IllegalArgumentException("Missing 'Supervisors/المشرفون' sheet");
+			pi.supervisors = supervisors.finish(pi);
+			if (readAssignments) {
+				AssignmentRows assignments = new AssignmentRows(pi.sessions);
+				pi.assignments = reader.readSheet(ASSIGNMENT_SHEETS, assignments) ? assignments.finish(pi) : null;
+				pi.config.setPreserveManualOverrides(pi.assignments != null);
+			}
 			return pi;
+		} catch (StreamingSheetReader.UncachedFormulaException e) {
+			// Not closed: closing would close the caller's package
+			return readWorkbook(new XSSFWorkbook(pkg), readAssignments);
+		}
+	}
+
+	/** As {@link #readWorkbook(File, boolean)}, from a workbook already open in memory. */
+	public ParsedInput readWorkbook(XSSFWorkbook wb, boolean readAssignments) {
+		FormulaEvaluator evaluator = evaluateFormulas ? wb.getCreationHelper().createFormulaEvaluator() : null;
+		ParsedInput pi = new ParsedInput();
+		pi.config = new Config();
+		SubjectRows subjects = new SubjectRows(pi.config);
+		if (!readSheet(wb, evaluator, SUBJECT_SHEETS, subjects)) throw new IllegalArgumentException("Missing 'Subjects/المواد' sheet");
+		SupervisorRows supervisors = new SupervisorRows();
+		boolean found;
+		try {
+			found = readSheet(wb, evaluator, SUPERVISOR_SHEETS, supervisors);
+		} catch (RuntimeException e) {
+			subjects.finish(pi); // an error among the subjects is still the one reported
+			throw e;
+		}
+		pi.sessions = subjects.finish(pi);
+		if (!found) throw new IllegalArgumentException("Missing 'Supervisors/المشرفون' sheet");
+		pi.supervisors = supervisors.finish(pi);
+		if (readAssignments) {
+			AssignmentRows assignments = new AssignmentRows(pi.sessions);
+			pi.assignments = readSheet(wb, evaluator, ASSIGNMENT_SHEETS, assignments) ? assignments.finish(pi) : null;
+			pi.config.setPreserveManualOverrides(pi.assignments != null);
+		}
+		return pi;
+	}
+
+	/**
+	 * Whether formulas saved without their results are computed while reading. Results saved with the
+	 * workbook are always read; without this such formulas read as blank. Off by default.
+	 */
+	public void setEvaluateFormulas(boolean evaluateFormulas) {
+		this.evaluateFormulas = evaluateFormulas;
+	}
+
+	public boolean isEvaluateFormulas() {
+		return evaluateFormulas;
+	}
+
+	private boolean readSheet(XSSFWorkbook wb, FormulaEvaluator evaluator, List<String> names, StreamingSheetReader.RowHandler handler) {
+		XSSFSheet sheet = getSheetAny(wb, names);
+		if (sheet == null) return false;
+		for (int r = 0; r <= sheet.getLastRowNum(); r++) {
+			Row row = sheet.getRow(r);
+			if (row == null) continue;
+			String[] cells = new String[Math.max(0, row.getLastCellNum())];
+			LocalDateTime[] dates = null;
+			for (int c = 0; c < cells.length; c++) {
+				Cell cell = row.getCell(c);
+				CellType type = cell == null ? CellType.BLANK : cell.getCellType();
+				CellValue evaluated = null;
+				if (type == CellType.FORMULA) {
+					// The result saved with the formula, else the evaluator's, which caches what it computes
+					if (((XSSFCell) cell).getCTCell().isSetV()) type = cell.getCachedFormulaResultType();
+					else if (evaluator != null) type = (evaluated = evaluator.evaluate(cell)).getCellType();
+				}
+				if (type == CellType.NUMERIC) {
+					double v = evaluated != null ? evaluated.getNumberValue() : cell.getNumericCellValue();
+					if (isDateFormatted(cell, v)) {
+						if (dates == null) dates = new LocalDateTime[cells.length];
+						dates[c] = CellValues.excelDateTime(v, wb.isDate1904());
+						cells[c] = dates[c].toLocalDate().toString();
+					} else {
+						cells[c] = Math.floor(v) == v ? Long.toString((long) v) : Double.toString(v);
+					}
+				} else if (type == CellType.STRING) {
+					cells[c] = evaluated != null ? evaluated.getStringValue() : cell.getStringCellValue();
+				} else if (type == CellType.BOOLEAN) {
+					cells[c] = Boolean.toString(evaluated != null ? evaluated.getBooleanValue() : cell.getBooleanCellValue());
+				} else {
+					cells[c] = ""; // blank, error, or a formula left unevaluated
+				}
+			}
+			handler.row(r, cells, dates);
 		}
+		return true;
 	}
 
-	private List<SubjectSession> readSubjects(XSSFWorkbook wb, Config cfg) {
-		XSSFSheet sheet = getSheetAny(wb, Arrays.asList("المواد", "Subjects"));
-		if (sheet == null) throw new IllegalArgumentException("Missing 'Subjects/المواد' sheet");
-		List<SubjectSession> result = new ArrayList<>();
+	// Rows of one sheet as cell strings, from either reader: the header is looked for among the
+	// first rows, every row after it goes to dataRow
+	private abstract class SheetRows implements StreamingSheetReader.RowHandler {
+		private final HeaderMatcher matcher;
+		HeaderMatcher.Columns columns;
+
+		SheetRows(HeaderMatcher matcher) {
+			this.matcher = matcher;
+		}
+
+		@Override
+		public void row(int r, String[] cells, LocalDateTime[] dates) {
+			if (columns != null) {
+				dataRow(r, cells, dates);
+				return;
+			}
+			if (r > HEADER_SEARCH_ROWS) throw matcher.missingColumns();
+			columns = matcher.match(cells);
+		}
+
+		abstract void dataRow(int r, String[] cells, LocalDateTime[] dates);
+
+		void checkHeader(ParsedInput pi, String sheet) {
+			if (columns == null) throw matcher.missingColumns();
+			if (!columns.unmatched.isEmpty()) pi.unmatchedColumns.put(sheet, columns.unmatched);
+		}
+
+		String cell(String[] cells, int field) {
+			return columns.get(cells, field);
+		}
+
+		// A date cell as its date, otherwise the text parsed as one
+		LocalDate date(String[] cells, LocalDateTime[] dates, int field) {
+			LocalDateTime typed = columns.get(dates, field);
+			return typed != null ? typed.toLocalDate() : parseDateCell(cell(cells, field));
+		}
+	}
+
+	private final class SubjectRows extends SheetRows {
+		private static final int SUBJECT = 0, DAY = 1, DATE = 2, PERIOD = 3, FROM = 4, TO = 5, BUILDING = 6, REQUIRED = 7;
 		// Tolerant header detection: accept Arabic/English variants and minor spelling differences
-		String[][] groups = new String[][]{
+		private static final HeaderMatcher COLUMNS = new HeaderMatcher(new String[][]{
 			{"المادة", "Subject"},
 			{"اليوم", "Day"},
 			{"التاريخ", "Date"},
 			{"الفترة", "Period"},
 			{"من", "From"},
-			{"إلى", "الى", "To"}
-		};
-		int headerRow = findHeaderRowAny(sheet, groups);
-		Map<String, Integer> idx = headerIndex(sheet.getRow(headerRow));
-		for (int r = headerRow + 1; r <= sheet.getLastRowNum(); r++) {
-			Row row = sheet.getRow(r);
-			if (row == null) continue;
-			String subject = getFirstExisting(row, idx, "المادة", "Subject");
-			String building = getFirstExisting(row, idx, "المبنى", "المبني", "Building");
-			String periodStr = getFirstExisting(row, idx, "الفترة", "Period");
-			String dayStr = getFirstExisting(row, idx, "اليوم", "Day");
-			String dateStr = getFirstExisting(row, idx, "التاريخ", "Date");
-			String fromStr = getFirstExisting(row, idx, "من", "From");
-			String toStr = getFirstExisting(row, idx, "إلى", "الى", "To");
-			if (isBlank(subject) && isBlank(dayStr) && isBlank(fromStr) && isBlank(toStr) && isBlank(dateStr)) continue;
+			{"إلى", "الى", "To"},
+			{"المبنى", "المبني", "Building"},
+			{"عدد_الملاحظين", "عدد_المشرفين", "Supervisors Required"},
+			{"المعرف", "ID"} // written by the template, not read
+		}, 6);
+
+		private static final int CHUNK_ROWS = 1024;
+
+		private final Config cfg;
+		private final List<Chunk> chunks = new ArrayList<>();
+		private Chunk open = new Chunk();
+
+		SubjectRows(Config cfg) {
+			super(COLUMNS);
+			this.cfg = cfg;
+		}
+
+		// Rows are independent once the header is known: full chunks are parsed on the common pool
+		// while the rest of the workbook is still being read
+		@Override
+		void dataRow(int r, String[] row, LocalDateTime[] dates) {
+			open.add(r, row, dates);
+			if (open.size == CHUNK_ROWS) {
+				open.task = ForkJoinTask.adapt(open).fork();
+				chunks.add(open);
+				open = new Chunk();
+			}
+		}
+
+		private SubjectSession parse(int r, String[] row, LocalDateTime[] dates) {
+			String subject = cell(row, SUBJECT);
+			String building = cell(row, BUILDING);
+			String periodStr = cell(row, PERIOD);
+			String dayStr = cell(row, DAY);
+			String dateStr = cell(row, DATE);
+			String fromStr = cell(row, FROM);
+			String toStr = cell(row, TO);
+			if (isBlank(subject) && isBlank(dayStr) && isBlank(fromStr) && isBlank(toStr) && isBlank(dateStr)) return null;
 			if (isBlank(subject) || isBlank(dayStr) || isBlank(fromStr) || isBlank(toStr) || isBlank(dateStr)) {
 				throw new IllegalArgumentException("Subjects row " + (r+1) + ": required fields missing");
 			}
 			SubjectSession s = new SubjectSession();
 			s.setId("S-" + r);
 			s.setSubjectName(subject);
-			DayOfWeekEnum parsedDay = null;
-			try { parsedDay = DayOfWeekEnum.fromString(dayStr); } catch (Exception ignored) {}
-			s.setDate(parseDateCell(dateStr));
-			DayOfWeekEnum fromDate = mapJavaDayToEnum(s.getDate().getDayOfWeek());
-			// Prefer date-derived day, ignore mismatches for robustness
-			s.setDay(fromDate != null ? fromDate : (parsedDay != null ? parsedDay : DayOfWeekEnum.SATURDAY));
+			s.setDate(date(row, dates, DATE));
+			// The date decides the day; a day column that disagrees is ignored for robustness
+			s.setDay(mapJavaDayToEnum(s.getDate().getDayOfWeek()));
 			PeriodOfDay period = parsePeriod(periodStr);
-			LocalTime fromTime = parseTime12h(fromStr, period);
-			LocalTime toTime = parseTime12h(toStr, period);
+			// Time-formatted cells are already 24-hour; only text goes through the 12-hour reading
+			LocalDateTime fromCell = columns.get(dates, FROM);
+			LocalDateTime toCell = columns.get(dates, TO);
+			LocalTime fromTime = fromCell != null ? fromCell.toLocalTime() : parseTime12h(fromStr, period);
+			LocalTime toTime = toCell != null ? toCell.toLocalTime() : parseTime12h(toStr, period);
 			// Heuristic: if times are not increasing, try opposite period interpretation
 			if (!toTime.isAfter(fromTime)) {
 				PeriodOfDay alt = (period == PeriodOfDay.MORNING ? PeriodOfDay.EVENING : PeriodOfDay.MORNING);
-				LocalTime altFrom = parseTime12h(fromStr, alt);
-				LocalTime altTo = parseTime12h(toStr, alt);
+				LocalTime altFrom = fromCell != null ? fromTime : parseTime12h(fromStr, alt);
+				LocalTime altTo = toCell != null ? toTime : parseTime12h(toStr, alt);
 				if (altTo.isAfter(altFrom)) {
 					period = alt;
 					fromTime = altFrom;
@@ -84,15 +279,13 @@ public class ExcelReaderWriter {
 			}
 			// Fallback: interpret as 24-hour if still invalid
 			if (!toTime.isAfter(fromTime)) {
-				try {
-					LocalTime f24 = LocalTime.parse(normalizeTime(fromStr));
-					LocalTime t24 = LocalTime.parse(normalizeTime(toStr));
-					if (t24.isAfter(f24)) {
-						fromTime = f24;
-						toTime = t24;
-						period = f24.getHour() < 12 ? PeriodOfDay.MORNING : PeriodOfDay.EVENING;
-					}
-				} catch (Exception ignore) {}
+				LocalTime f24 = fromCell != null ? fromTime : CellValues.parseIsoTime(fromStr);
+				LocalTime t24 = toCell != null ? toTime : CellValues.parseIsoTime(toStr);
+				if (f24 != null && t24 != null && t24.isAfter(f24)) {
+					fromTime = f24;
+					toTime = t24;
+					period = f24.getHour() < 12 ? PeriodOfDay.MORNING : PeriodOfDay.EVENING;
+				}
 			}
 			// Last resort: adjust toTime to be at least +1 hour if equal or before
 			if (!toTime.isAfter(fromTime)) {
@@ -108,35 +301,83 @@ public class ExcelReaderWriter {
 			if (!s.getTo().isAfter(s.getFrom())) {
 				throw new IllegalArgumentException("Subjects row " + (r+1) + ": To must be > From");
 			}
-			Integer reqIdx = firstIndex(idx, "عدد_الملاحظين", "عدد_المشرفين", "Supervisors Required");
-			int req = getOptionalInt(row, reqIdx, cfg.getDefaultSupervisorsPerSubject());
+			int req = getOptionalInt(cell(row, REQUIRED), cfg.getDefaultSupervisorsPerSubject());
 			s.setSupervisorsRequired(Math.max(1, req));
 			s.setNotes(null);
 			s.setBuilding(isBlank(building) ? null : building.trim());
 			s.setRequiredRole(RoleType.INVIGILATOR);
-			result.add(s);
+			return s;
+		}
+
+		/** The sessions in sheet order; the first failing row, in that order, is the error reported. */
+		List<SubjectSession> finish(ParsedInput pi) {
+			checkHeader(pi, SUBJECT_SHEETS.get(0));
+			open.run(); // the last, partial chunk on this thread
+			chunks.add(open);
+			open = new Chunk();
+			List<SubjectSession> result = new ArrayList<>();
+			for (Chunk chunk : chunks) {
+				if (chunk.task != null) chunk.task.join();
+				if (chunk.error != null) throw chunk.error;
+				result.addAll(chunk.sessions);
+			}
+			if (result.isEmpty()) throw new IllegalArgumentException("No sessions found in Subjects");
+			return result;
+		}
+
+		private final class Chunk implements Runnable {
+			private final int[] rows = new int[CHUNK_ROWS];
+			private String[][] cells = new String[CHUNK_ROWS][];
+			private LocalDateTime[][] dates = new LocalDateTime[CHUNK_ROWS][];
+			private int size;
+			private final List<SubjectSession> sessions = new ArrayList<>();
+			private RuntimeException error; // rethrown by finish, so it keeps its message and row number
+			private ForkJoinTask<?> task;
+
+			void add(int r, String[] row, LocalDateTime[] rowDates) {
+				rows[size] = r;
+				cells[size] = row;
+				dates[size++] = rowDates;
+			}
+
+			@Override
+			public void run() {
+				try {
+					for (int i = 0; i < size; i++) {
+						SubjectSession s = parse(rows[i], cells[i], dates[i]);
+						if (s != null) sessions.add(s);
+					}
+				} catch (RuntimeException e) {
+					error = e;
+				}
+				cells = null;
+				dates = null;
+			}
 		}
-		if (result.isEmpty()) throw new IllegalArgumentException("No sessions found in Subjects");
-		return result;
 	}
 
-	private List<Supervisor> readSupervisors(XSSFWorkbook wb) {
-		XSSFSheet sheet = getSheetAny(wb, Arrays.asList("المراقبون", "المشرفون", "Supervisors"));
-		if (sheet == null) throw new IllegalArgumentException("Missing 'Supervisors/المشرفون' sheet");
-		List<Supervisor> result = new ArrayList<>();
-		String[][] groups = new String[][]{
+	private final class SupervisorRows extends SheetRows {
+		private static final int NAME = 0, DAYS = 1, LOAD = 2, ROLE = 3, EXCLUDED = 4;
+		private static final HeaderMatcher COLUMNS = new HeaderMatcher(new String[][]{
 			{"الاسم", "المشرف", "Supervisor"},
-			{"الأيام المتاحة", "الايام المتاحة", "Available Days"}
-		};
-		int headerRow = findHeaderRowAny(sheet, groups);
-		Map<String, Integer> idx = headerIndex(sheet.getRow(headerRow));
-		Set<String> names = new HashSet<>();
-		for (int r = headerRow + 1; r <= sheet.getLastRowNum(); r++) {
-			Row row = sheet.getRow(r);
-			if (row == null) continue;
-			String name = getFirstExisting(row, idx, "الاسم", "المشرف", "Supervisor");
-			String days = getFirstExisting(row, idx, "الأيام المتاحة", "الايام المتاحة", "Available Days");
-			if (isBlank(name) && isBlank(days)) continue;
+			{"الأيام المتاحة", "الايام المتاحة", "Available Days"},
+			{"النسبة٪", "النسبة%", "Load%", "LoadPct"},
+			{"الوظيفة", "النوع", "Role"},
+			{"المواد المستبعدة", "Excluded Subjects"}
+		}, 2);
+
+		private final List<Supervisor> result = new ArrayList<>();
+		private final Set<String> names = new HashSet<>();
+
+		SupervisorRows() {
+			super(COLUMNS);
+		}
+
+		@Override
+		void dataRow(int r, String[] row, LocalDateTime[] dates) {
+			String name = cell(row, NAME);
+			String days = cell(row, DAYS);
+			if (isBlank(name) && isBlank(days)) return;
 			if (isBlank(name) || isBlank(days)) {
 				throw new IllegalArgumentException("Supervisors row " + (r+1) + ": required fields missing");
 			}
@@ -150,16 +391,15 @@ public class ExcelReaderWriter {
 				if (!isBlank(d)) set.add(DayOfWeekEnum.fromString(d.trim()));
 			}
 			s.setAvailableDays(set);
-			Integer pctIdx = firstIndex(idx, "النسبة٪", "النسبة%", "Load%", "LoadPct");
-			Double pct = getOptionalDouble(row, pctIdx);
+			Double pct = getOptionalDouble(cell(row, LOAD));
 			s.setLoadPercentage(pct == null ? 100.0 : pct);
-			String roleStr = getFirstExisting(row, idx, "الوظيفة", "النوع", "Role");
+			String roleStr = cell(row, ROLE);
 			if (!isBlank(roleStr)) {
 				s.setRole(RoleType.fromString(roleStr));
 			}
-			
+
 			// Read excluded subjects column
-			String excludedSubjectsStr = getFirstExisting(row, idx, "المواد المستبعدة", "Excluded Subjects");
+			String excludedSubjectsStr = cell(row, EXCLUDED);
 			if (!isBlank(excludedSubjectsStr)) {
 				Set<String> excludedSubjects = new HashSet<>();
 				for (String subject : excludedSubjectsStr.split(",")) {
@@ -169,31 +409,154 @@ public class ExcelReaderWriter {
 				}
 				s.setExcludedSubjects(excludedSubjects);
 			}
-			
+
 			result.add(s);
 		}
-		if (result.isEmpty()) throw new IllegalArgumentException("No supervisors found in Supervisors");
-		return result;
+
+		List<Supervisor> finish(ParsedInput pi) {
+			checkHeader(pi, SUPERVISOR_SHEETS.get(0));
+			if (result.isEmpty()) throw new IllegalArgumentException("No supervisors found in Supervisors");
+			return result;
+		}
+	}
+
+	// Input sessions are matched by id; floor and maintenance rows keep the date, period and
+	// building their generated slot is built from. Rows of sessions no longer in the input are dropped.
+	private final class AssignmentRows extends SheetRows {
+		private final Map<String, SubjectSession> byId = new HashMap<>();
+		private final AssignmentResult result = new AssignmentResult();
+
+		private static final int ID = 0, ASSIGNED = 1, DATE = 2, BUILDING = 3, SUBJECT = 4, PERIOD = 5, REASON = 6;
+		// The remaining columns of the sheet are written for people, not read back
+		private static final HeaderMatcher COLUMNS = new HeaderMatcher(new String[][]{
+			{"معرف_المادة"}, {"المعينون"}, {"التاريخ"}, {"المبنى"}, {"المادة"}, {"الفترة"}, {"السبب"},
+			{"اليوم"}, {"من"}, {"إلى"}, {"الحالة"}
+		}, 2);
+
+		AssignmentRows(List<SubjectSession> sessions) {
+			super(COLUMNS);
+			for (SubjectSession s : sessions) byId.put(s.getId(), s);
+		}
+
+		@Override
+		void dataRow(int r, String[] row, LocalDateTime[] dates) {
+			String id = cell(row, ID).trim();
+			SubjectSession session = byId.get(id);
+			if (session == null) {
+				String dateStr = cell(row, DATE);
+				if (isBlank(dateStr) || !(id.startsWith("F-") || id.startsWith("M-"))) return;
+				String building = cell(row, BUILDING);
+				session = new SubjectSession();
+				session.setId(id);
+				session.setSubjectName(cell(row, SUBJECT));
+				session.setDate(date(row, dates, DATE));
+				session.setPeriod(parsePeriod(cell(row, PERIOD)));
+				session.setBuilding(isBlank(building) ? null : building.trim());
+				session.setRequiredRole(id.startsWith("F-") ? RoleType.FLOOR_SUPERVISOR : RoleType.MAINTENANCE);
+			}
+			List<String> names = new ArrayList<>();
+			for (String name : cell(row, ASSIGNED).split(",")) {
+				if (!isBlank(name)) names.add(name.trim());
+			}
+			String reason = cell(row, REASON);
+			AssignmentResult.SessionAssignment sa = new AssignmentResult.SessionAssignment();
+			sa.setSession(session);
+			sa.setAssignedSupervisors(names);
+			sa.setReason(isBlank(reason) ? null : reason);
+			result.getSessionAssignments().add(sa);
+		}
+
+		AssignmentResult finish(ParsedInput pi) {
+			checkHeader(pi, ASSIGNMENT_SHEETS.get(0));
+			return result;
+		}
 	}
 
+	/**
+	 * Copies the input workbook and adds the output sheets. The large sheets are streamed through a
+	 * bounded row window, so the output size does not drive the heap; only each distinct string is
+	 * held, in the shared strings table, so names, subjects and statuses are stored once. Output sheets
+	 * of an earlier run are rebuilt in place; Logs and Solve Stats keep their earlier rows.
+	 */
 	public void writeOutput(File inputFile, File outputFile, AssignmentResult result) throws IOException {
-		try (InputStream in = new FileInputStream(inputFile); XSSFWorkbook wb = new XSSFWorkbook(in)) {
-			writeAssignmentsSheet(wb, result);
-			writeSupervisorTotalsSheet(wb, result);
-			writeSupervisorSchedulesSheet(wb, result);
-			writeLogsSheet(wb, result);
-			writeBackupsSheet(wb, result);
+		OPCPackage pkg = StreamingSheetReader.open(inputFile);
+		try {
+			writeOutput(pkg, outputFile, result);
+		} finally {
+			pkg.revert();
+		}
+	}
+
+	/**
+	 * As {@link #writeOutput(File, File, AssignmentResult)}, from a package already open; the package
+	 * is only read. Its worksheets are not parsed: the input sheets are copied into the output as they
+	 * are (see {@link WorksheetShells}), so memory does not grow with the input either.
+	 */
+	public void writeOutput(OPCPackage input, File outputFile, AssignmentResult result) throws IOException {
+		List<String> keepWhole = new ArrayList<>(LOG_SHEETS);
+		keepWhole.addAll(STATS_SHEETS);
+		try (WorksheetShells shells = new WorksheetShells(input, keepWhole)) {
+			File written = File.createTempFile("output", ".xlsx");
+			try {
+				Set<String> keptParts = new HashSet<>();
+				writeOutput(shells.template(), written, result, keptParts);
+				shells.restore(written, keptParts, outputFile);
+			} finally {
+				if (!written.delete()) written.deleteOnExit();
+			}
+		}
+	}
+
+	/** As {@link #writeOutput(File, File, AssignmentResult)}, into a workbook already open; the workbook is modified. */
+	public void writeOutput(XSSFWorkbook template, File outputFile, AssignmentResult result) throws IOException {
+		writeOutput(template, outputFile, result, new HashSet<>());
+	}
+
+	// keptParts receives the part names of the template's sheets that go into the output unchanged
+	private void writeOutput(XSSFWorkbook template, File outputFile, AssignmentResult result, Set<String> keptParts) throws IOException {
+		List<String> order = new ArrayList<>();
+		for (Sheet sheet : template) order.add(sheet.getSheetName());
+		String assignments = takeSheet(template, ASSIGNMENT_SHEETS, order);
+		String totals = takeSheet(template, TOTALS_SHEETS, order);
+		String schedules = takeSheet(template, SCHEDULE_SHEETS, order);
+		if (getSheetAny(template, LOG_SHEETS) == null) order.add(LOG_SHEETS.get(0));
+		if (result.getSolveStats() != null && getSheetAny(template, STATS_SHEETS) == null) order.add(STATS_SHEETS.get(0));
+		String backups = takeSheet(template, BACKUP_SHEETS, order);
+		writeLogsSheet(template, result);
+		for (Sheet sheet : template) keptParts.add(((XSSFSheet) sheet).getPackagePart().getPartName().getName());
+
+		SXSSFWorkbook wb = new SXSSFWorkbook(template, OUTPUT_ROW_WINDOW, false, true);
+		try {
+			writeAssignmentsSheet(wb.createSheet(assignments), result);
+			writeSupervisorTotalsSheet(wb.createSheet(totals), result);
+			writeSupervisorSchedulesSheet(wb.createSheet(schedules), result);
+			writeBackupsSheet(wb.createSheet(backups), result);
+			for (int i = 0; i < order.size(); i++) wb.setSheetOrder(order.get(i), i);
 			try (OutputStream out = new FileOutputStream(outputFile)) {
 				wb.write(out);
 			}
+		} finally {
+			wb.dispose();
+		}
+	}
+
+	// Removes the sheet an earlier run wrote, if any, and returns the name to recreate it under;
+	// a new sheet goes after the existing ones
+	private String takeSheet(XSSFWorkbook wb, List<String> names, List<String> order) {
+		XSSFSheet old = getSheetAny(wb, names);
+		if (old == null) {
+			order.add(names.get(0));
+			return names.get(0);
 		}
+		String name = old.getSheetName();
+		wb.removeSheetAt(wb.getSheetIndex(old));
+		return name;
 	}
 
-	private void writeAssignmentsSheet(XSSFWorkbook wb, AssignmentResult result) {
-		Sheet sheet = Optional.ofNullable(getSheetAny(wb, Arrays.asList("التعيينات", "Assignments"))).orElseGet(() -> wb.createSheet("التعيينات"));
-		if (sheet instanceof XSSFSheet) ((XSSFSheet) sheet).setRightToLeft(true);
+	private void writeAssignmentsSheet(Sheet sheet, AssignmentResult result) {
+		sheet.setRightToLeft(true);
 		int r = 0;
-		Row header = getOrCreateRow(sheet, r++);
+		Row header = sheet.createRow(r++);
 		writeRow(header, "معرف_المادة", "المادة", "المبنى", "الفترة", "اليوم", "التاريخ", "من", "إلى", "المعينون", "الحالة", "السبب");
 		List<AssignmentResult.SessionAssignment> sorted = new ArrayList<>(result.getSessionAssignments());
 		sorted.sort((a, b) -> {
@@ -221,7 +584,7 @@ public class ExcelReaderWriter {
 			return sa.getFrom().compareTo(sb.getFrom());
 		});
 		for (AssignmentResult.SessionAssignment sa : sorted) {
-			Row row = getOrCreateRow(sheet, r++);
+			Row row = sheet.createRow(r++);
 			SubjectSession s = sa.getSession();
 			writeRow(row,
 				s.getId(),
@@ -239,11 +602,10 @@ public class ExcelReaderWriter {
 		}
 	}
 
-	private void writeSupervisorTotalsSheet(XSSFWorkbook wb, AssignmentResult result) {
-		Sheet sheet = Optional.ofNullable(getSheetAny(wb, Arrays.asList("إجمالي المراقبين", "Supervisor Totals"))).orElseGet(() -> wb.createSheet("إجمالي المراقبين"));
-		if (sheet instanceof XSSFSheet) ((XSSFSheet) sheet).setRightToLeft(true);
+	private void writeSupervisorTotalsSheet(Sheet sheet, AssignmentResult result) {
+		sheet.setRightToLeft(true);
 		int r = 0;
-		Row header = getOrCreateRow(sheet, r++);
+		Row header = sheet.createRow(r++);
 		List<String> cols = new ArrayList<>(Arrays.asList("الاسم", "الوظيفة", "ساعات_أساسي", "ساعات_احتياطي", "الساعات_الهدف", "الساعات_الفعلية", "نسبة_التحميل%"));
 		writeRow(header, cols.toArray(new String[0]));
 
@@ -253,7 +615,7 @@ public class ExcelReaderWriter {
 			.thenComparing(AssignmentResult.SupervisorTotals::getSupervisor)
 		);
 		for (AssignmentResult.SupervisorTotals t : totalsList) {
-			Row row = getOrCreateRow(sheet, r++);
+			Row row = sheet.createRow(r++);
 			List<String> data = new ArrayList<>();
 			data.add(t.getSupervisor());
 			data.add(t.getRole() == RoleType.FLOOR_SUPERVISOR ? "مشرف دور" : "ملاحظ");
@@ -269,33 +631,41 @@ public class ExcelReaderWriter {
 
 	}
 
-	public void writeSupervisorSchedulesSheet(XSSFWorkbook wb, AssignmentResult result) {
-		Sheet sheet = Optional.ofNullable(getSheetAny(wb, Arrays.asList("جداول المراقبين"))).orElseGet(() -> wb.createSheet("جداول المراقبين"));
-		if (sheet instanceof XSSFSheet) ((XSSFSheet) sheet).setRightToLeft(true);
+	private void writeSupervisorSchedulesSheet(Sheet sheet, AssignmentResult result) {
+		sheet.setRightToLeft(true);
 		int r = 0;
 		// Build a map from sessionId to session for fast lookup (covers both subjects and floor slots)
 		Map<String, SubjectSession> sessionById = new HashMap<>();
+		// Each supervisor's primary and backup assignments, in result order
+		Map<String, List<AssignmentResult.SessionAssignment>> primariesBySupervisor = new HashMap<>();
+		Map<String, List<AssignmentResult.BackupAssignment>> backupsBySupervisor = new HashMap<>();
 		for (AssignmentResult.SessionAssignment sa : result.getSessionAssignments()) {
 			SubjectSession s = sa.getSession();
 			if (s != null && s.getId() != null) sessionById.put(s.getId(), s);
+			List<String> names = sa.getAssignedSupervisors();
+			for (int i = 0; i < names.size(); i++) {
+				if (names.subList(0, i).contains(names.get(i))) continue;
+				primariesBySupervisor.computeIfAbsent(names.get(i), k -> new ArrayList<>()).add(sa);
+			}
+		}
+		for (AssignmentResult.BackupAssignment ba : result.getBackupAssignments()) {
+			backupsBySupervisor.computeIfAbsent(ba.getSupervisor(), k -> new ArrayList<>()).add(ba);
 		}
 		for (AssignmentResult.SupervisorTotals t : result.getSupervisorTotals()) {
-			Row title = getOrCreateRow(sheet, r);
+			Row title = sheet.createRow(r);
 			String roleLabel = t.getRole() == RoleType.FLOOR_SUPERVISOR ? "(مشرف دور)" : "(ملاحظ)";
 			String loadLabel = String.format(java.util.Locale.US, "%.0f%%", t.getLoadPercentage() == null ? 100.0 : t.getLoadPercentage());
 			writeRow(title, t.getSupervisor() + " " + roleLabel + " - تحميل: " + loadLabel);
-			if (sheet instanceof XSSFSheet) {
-				((XSSFSheet) sheet).addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(r, r, 0, 5));
-			}
+			// The sheet is new, so title regions cannot overlap and need no check
+			sheet.addMergedRegionUnsafe(new CellRangeAddress(r, r, 0, 5));
 			r++;
-			Row header = getOrCreateRow(sheet, r++);
+			Row header = sheet.createRow(r++);
 			writeRow(header, "المادة", "المبنى", "التاريخ", "اليوم", "الفترة", "من", "إلى", "نوع");
 
 			// Collect combined events (primary + backups) for this supervisor
 			class Event { String subject; String building; java.time.LocalDate date; DayOfWeekEnum day; PeriodOfDay period; java.time.LocalTime from; java.time.LocalTime to; String kind; }
 			List<Event> events = new ArrayList<>();
-			for (AssignmentResult.SessionAssignment sa : result.getSessionAssignments()) {
-				if (!sa.getAssignedSupervisors().contains(t.getSupervisor())) continue;
+			for (AssignmentResult.SessionAssignment sa : primariesBySupervisor.getOrDefault(t.getSupervisor(), Collections.emptyList())) {
 				SubjectSession s = sa.getSession();
 				Event ev = new Event();
 				ev.subject = s.getSubjectName();
@@ -308,8 +678,7 @@ public class ExcelReaderWriter {
 				ev.kind = "أساسي";
 				events.add(ev);
 			}
-			for (AssignmentResult.BackupAssignment ba : result.getBackupAssignments()) {
-				if (!t.getSupervisor().equals(ba.getSupervisor())) continue;
+			for (AssignmentResult.BackupAssignment ba : backupsBySupervisor.getOrDefault(t.getSupervisor(), Collections.emptyList())) {
 				Event ev = new Event();
 				SubjectSession s = ba.getSessionId() != null ? sessionById.get(ba.getSessionId()) : null;
 				ev.subject = ba.getSubject() == null && s != null ? s.getSubjectName() : (ba.getSubject() == null ? "" : ba.getSubject());
@@ -331,7 +700,7 @@ public class ExcelReaderWriter {
 
 			// Write rows
 			for (Event ev : events) {
-				Row row = getOrCreateRow(sheet, r++);
+				Row row = sheet.createRow(r++);
 				writeRow(row,
 					ev.subject == null ? "" : ev.subject,
 					ev.building == null ? "" : ev.building,
@@ -344,14 +713,14 @@ public class ExcelReaderWriter {
 				);
 			}
 
-			Row spacer = getOrCreateRow(sheet, r++);
+			Row spacer = sheet.createRow(r++);
 			writeRow(spacer, "");
 			r += 1;
 		}
 	}
 
 	private void writeLogsSheet(XSSFWorkbook wb, AssignmentResult result) {
-		Sheet sheet = Optional.ofNullable(getSheetAny(wb, Arrays.asList("Logs"))).orElseGet(() -> wb.createSheet("Logs"));
+		Sheet sheet = Optional.ofNullable(getSheetAny(wb, LOG_SHEETS)).orElseGet(() -> wb.createSheet(LOG_SHEETS.get(0)));
 		int r = sheet.getLastRowNum() + 1;
 		if (r == 0) {
 			Row h = sheet.createRow(r++);
@@ -362,9 +731,10 @@ public class ExcelReaderWriter {
 		long assigned = result.getSessionAssignments().stream().filter(a -> "Assigned".equals(a.getStatus())).count();
 		long partial = result.getSessionAssignments().stream().filter(a -> "PartiallyAssigned".equals(a.getStatus())).count();
 		long unassigned = result.getSessionAssignments().stream().filter(a -> "Unassigned".equals(a.getStatus())).count();
+		String timestamp = java.time.ZonedDateTime.now().toString();
 		Row row = sheet.createRow(r);
 		writeRow(row,
-			java.time.ZonedDateTime.now().toString(),
+			timestamp,
 			Integer.toString(result.getSessionAssignments().size()),
 			Long.toString(assigned),
 			Long.toString(partial),
@@ -372,13 +742,39 @@ public class ExcelReaderWriter {
 			String.format(java.util.Locale.US, "%.2f", result.getTargetHoursPerSupervisor()),
 			String.format(java.util.Locale.US, "%.2f", result.getTotalHoursNeeded())
 		);
+		writeSolveStatsSheet(wb, timestamp, result.getSolveStats());
+	}
+
+	// One Metric/Value row per figure, appended under the timestamp of the run's Logs row
+	private void writeSolveStatsSheet(XSSFWorkbook wb, String timestamp, SolveStats stats) {
+		if (stats == null) return;
+		Sheet sheet = Optional.ofNullable(getSheetAny(wb, STATS_SHEETS)).orElseGet(() -> wb.createSheet(STATS_SHEETS.get(0)));
+		int r = sheet.getLastRowNum() + 1;
+		if (r == 0) writeRow(sheet.createRow(r++), "Timestamp", "Metric", "Value", "AllocatedBytes");
+		for (SolveStats.PhaseStats ps : stats.getPhases()) {
+			writeRow(sheet.createRow(r++), timestamp, "Phase " + ps.getPhase().name(), String.format(java.util.Locale.US, "%.2f", ps.getWallMillis()), Long.toString(ps.getAllocatedBytes()));
+		}
+		writeRow(sheet.createRow(r++), timestamp, "ElapsedMillis", String.format(java.util.Locale.US, "%.2f", stats.getElapsedMillis()));
+		writeRow(sheet.createRow(r++), timestamp, "SlotsProcessed", Long.toString(stats.getSlotsProcessed()));
+		writeRow(sheet.createRow(r++), timestamp, "CandidatesScanned", Long.toString(stats.getCandidatesScanned()));
+		writeRow(sheet.createRow(r++), timestamp, "RelaxedAvailabilityFallbacks", Long.toString(stats.getRelaxedAvailabilityFallbacks()));
+		writeRow(sheet.createRow(r++), timestamp, "Backfills", Long.toString(stats.getBackfills()));
+		writeRow(sheet.createRow(r++), timestamp, "AutoBackfills", Long.toString(stats.getAutoBackfills()));
+		if (stats.getRuns() > 1) {
+			writeRow(sheet.createRow(r++), timestamp, "Runs", Integer.toString(stats.getRuns()));
+			writeRow(sheet.createRow(r++), timestamp, "AllRunsSlotsProcessed", Long.toString(stats.getAllRunsSlotsProcessed()));
+			writeRow(sheet.createRow(r++), timestamp, "AllRunsCandidatesScanned", Long.toString(stats.getAllRunsCandidatesScanned()));
+		}
+		long[] pools = stats.getCandidatePoolSizes();
+		for (int i = 0; i < pools.length; i++) {
+			if (pools[i] > 0) writeRow(sheet.createRow(r++), timestamp, "CandidatePoolSize " + SolveStats.poolSizeLabel(i), Long.toString(pools[i]));
+		}
 	}
 
-	private void writeBackupsSheet(XSSFWorkbook wb, AssignmentResult result) {
-		Sheet sheet = Optional.ofNullable(getSheetAny(wb, Arrays.asList("الاحتياط"))).orElseGet(() -> wb.createSheet("الاحتياط"));
-		if (sheet instanceof XSSFSheet) ((XSSFSheet) sheet).setRightToLeft(true);
+	private void writeBackupsSheet(Sheet sheet, AssignmentResult result) {
+		sheet.setRightToLeft(true);
 		int r = 0;
-		Row header = getOrCreateRow(sheet, r++);
+		Row header = sheet.createRow(r++);
 		writeRow(header, "التاريخ", "اليوم", "الفترة", "النوع", "الاسم", "المادة", "المبنى");
 		List<AssignmentResult.BackupAssignment> list = new ArrayList<>(result.getBackupAssignments());
 		list.sort(Comparator
@@ -387,7 +783,7 @@ public class ExcelReaderWriter {
 			.thenComparing(AssignmentResult.BackupAssignment::getSupervisor)
 		);
 		for (AssignmentResult.BackupAssignment ba : list) {
-			Row row = getOrCreateRow(sheet, r++);
+			Row row = sheet.createRow(r++);
 			writeRow(row,
 				ba.getDate() == null ? "" : ba.getDate().toString(),
 				ba.getDate() == null ? "" : arabicDay(mapJavaDayToEnum(ba.getDate().getDayOfWeek())),
@@ -401,66 +797,10 @@ public class ExcelReaderWriter {
 	}
 
 	// Helpers
-	private Map<String, Integer> headerIndex(Row row) {
-		if (row == null) throw new IllegalArgumentException("Sheet is missing header row");
-		Map<String, Integer> map = new HashMap<>();
-		for (int c = 0; c < row.getLastCellNum(); c++) {
-			Cell cell = row.getCell(c);
-			if (cell == null) continue;
-			String name = getCellString(cell);
-			if (name != null && !name.trim().isEmpty()) map.put(name.trim(), c);
-		}
-		return map;
-	}
-
-	private int findHeaderRow(Sheet sheet, String[] mustHave) {
-		int max = Math.min(sheet.getLastRowNum(), 30);
-		for (int r = 0; r <= max; r++) {
-			Row row = sheet.getRow(r);
-			if (row == null) continue;
-			Map<String, Integer> idx = headerIndex(row);
-			boolean ok = true;
-			for (String col : mustHave) if (!idx.containsKey(col)) { ok = false; break; }
-			if (ok) return r;
-		}
-		throw new IllegalArgumentException("Missing required columns: " + String.join(", ", mustHave));
-	}
-
-	private int findHeaderRowAny(Sheet sheet, String[][] groups) {
-		int max = Math.min(sheet.getLastRowNum(), 50);
-		for (int r = 0; r <= max; r++) {
-			Row row = sheet.getRow(r);
-			if (row == null) continue;
-			Map<String, Integer> idx = headerIndex(row);
-			boolean allGroupsPresent = true;
-			for (String[] group : groups) {
-				boolean groupPresent = false;
-				for (String name : group) {
-					if (idx.containsKey(name)) { groupPresent = true; break; }
-				}
-				if (!groupPresent) { allGroupsPresent = false; break; }
-			}
-			if (allGroupsPresent) return r;
-		}
-		// Build friendly message listing any one from each group
-		StringBuilder sb = new StringBuilder();
-		for (int i = 0; i < groups.length; i++) {
-			if (i > 0) sb.append(", ");
-			sb.append(String.join("/", groups[i]));
-		}
-		throw new IllegalArgumentException("Missing required columns: " + sb.toString());
-	}
-
 	private void required(Map<String, Integer> idx, String... cols) {
 		for (String col : cols) if (!idx.containsKey(col)) throw new IllegalArgumentException("Missing required column '" + col + "'");
 	}
 
-	private String normalizeTime(String s) {
-		String t = s.trim();
-		if (t.length() == 4) t = "0" + t;
-		return t;
-	}
-
 	private PeriodOfDay parsePeriod(String s) {
 		if (s == null) return PeriodOfDay.MORNING; // default
 		String v = s.trim();
@@ -474,13 +814,20 @@ public class ExcelReaderWriter {
 		String t = s.trim();
 		if (t.contains("AM") || t.contains("PM") || t.contains("am") || t.contains("pm")) {
 			// If explicitly marked, use 12-hour format with AM/PM
-			DateTimeFormatter fmt = DateTimeFormatter.ofPattern("h:mm a", java.util.Locale.ENGLISH);
-			return LocalTime.parse(t.toUpperCase(java.util.Locale.ENGLISH), fmt);
+			LocalTime time = CellValues.parseClockTime(t);
+			if (time == null) throw new IllegalArgumentException("Invalid time: " + s);
+			return time;
+		}
+		// Otherwise, interpret based on period: hour, then minutes up to any further colon ("8:" is 8:00)
+		int colon = t.indexOf(':');
+		int hour = parseIntTrimmed(t, 0, colon < 0 ? t.length() : colon);
+		int minute = 0;
+		if (colon >= 0) {
+			int next = t.indexOf(':', colon + 1);
+			boolean rest = false;
+			for (int i = colon + 1; i < t.length() && !rest; i++) rest = t.charAt(i) != ':';
+			if (rest) minute = parseIntTrimmed(t, colon + 1, next < 0 ? t.length() : next);
 		}
-		// Otherwise, interpret based on period
-		String[] parts = t.split(":");
-		int hour = Integer.parseInt(parts[0].trim());
-		int minute = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 0;
 		// Fallback: accept 24-hour input (13..23)
 		if (hour >= 13 && hour <= 23) {
 			return LocalTime.of(hour, minute);
@@ -497,58 +844,30 @@ public class ExcelReaderWriter {
 		return LocalTime.of(hour, minute);
 	}
 
-	private String getCellString(Cell cell) {
-		if (cell == null) return "";
-		if (cell.getCellType() == CellType.STRING) return cell.getStringCellValue();
-		if (cell.getCellType() == CellType.NUMERIC) {
-			if (DateUtil.isCellDateFormatted(cell)) {
-				java.util.Date d = cell.getDateCellValue();
-				return d.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDate().toString();
-			} else {
-				double v = cell.getNumericCellValue();
-				if (Math.floor(v) == v) return Long.toString((long) v);
-				return Double.toString(v);
-			}
-		}
-		if (cell.getCellType() == CellType.BOOLEAN) return Boolean.toString(cell.getBooleanCellValue());
-		return "";
-	}
-
-	private String getFirstExisting(Row row, Map<String, Integer> idx, String... keys) {
-		Integer i = firstIndex(idx, keys);
-		return i == null ? "" : getCellString(row.getCell(i));
+	// As DateUtil.isCellDateFormatted, for a value that may come from the evaluator
+	private boolean isDateFormatted(Cell cell, double v) {
+		CellStyle style = cell.getCellStyle();
+		return DateUtil.isValidExcelDate(v) && style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
 	}
 
-	private Integer firstIndex(Map<String, Integer> idx, String... keys) {
-		for (String k : keys) {
-			Integer i = idx.get(k);
-			if (i != null) return i;
-		}
-		return null;
+	private static int parseIntTrimmed(String s, int from, int to) {
+		while (from < to && s.charAt(from) <= ' ') from++;
+		while (to > from && s.charAt(to - 1) <= ' ') to--;
+		return Integer.parseInt(s, from, to, 10);
 	}
 
-	private int getOptionalInt(Row row, Integer idx, int defaultVal) {
-		if (idx == null) return defaultVal;
-		String s = getCellString(row.getCell(idx));
+	private int getOptionalInt(String s, int defaultVal) {
 		if (isBlank(s)) return defaultVal;
 		return Integer.parseInt(s.trim());
 	}
 
-	private Double getOptionalDouble(Row row, Integer idx) {
-		if (idx == null) return null;
-		String s = getCellString(row.getCell(idx));
+	private Double getOptionalDouble(String s) {
 		if (isBlank(s)) return null;
 		return Double.parseDouble(s.trim());
 	}
 
 	private boolean isBlank(String s) { return s == null || s.trim().isEmpty(); }
 
-	private Row getOrCreateRow(Sheet sheet, int r) {
-		Row row = sheet.getRow(r);
-		if (row == null) row = sheet.createRow(r);
-		return row;
-	}
-
 	private void writeRow(Row row, String... values) {
 		for (int i = 0; i < values.length; i++) {
 			Cell cell = row.getCell(i);
@@ -572,10 +891,9 @@ public class ExcelReaderWriter {
 
 	private LocalDate parseDateCell(String s) {
 		if (isBlank(s)) return null;
-		try { return LocalDate.parse(s.trim()); } catch (Exception ignored) {}
-		try { return LocalDate.parse(s.trim(), DateTimeFormatter.ofPattern("d-M-uuuu")); } catch (Exception ignored) {}
-		try { return LocalDate.parse(s.trim(), DateTimeFormatter.ofPattern("d/M/uuuu")); } catch (Exception ignored) {}
-		throw new IllegalArgumentException("Invalid date: " + s);
+		LocalDate d = CellValues.parseDate(s);
+		if (d == null) throw new IllegalArgumentException("Invalid date: " + s);
+		return d;
 	}
 
 	private DayOfWeekEnum mapJavaDayToEnum(java.time.DayOfWeek dow) {
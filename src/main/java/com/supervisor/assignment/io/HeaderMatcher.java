@@ -0,0 +1,108 @@
+package com.supervisor.assignment.io;
+
+import java.util.*;
+
+/**
+ * Header resolution for one sheet layout, compiled once. Every alias is indexed both as written and
+ * normalised by {@link ArabicText#normalize}, the same folding as the launcher's search, so a candidate
+ * header row costs one lookup per cell and data rows are then read by column ordinal. An exact spelling always wins over a normalised one, and an earlier alias of
+ * a field over a later one; a header repeated in the row resolves to its last column.
+ */
+final class HeaderMatcher {
+	private final String[][] aliases;
+	private final int requiredFields;
+	// alias -> (field << 8 | alias position) of every field it names
+	private final Map<String, int[]> exact = new HashMap<>();
+	private final Map<String, int[]> normalized = new HashMap<>();
+
+	/** {@code aliases} per field in priority order; the first {@code requiredFields} fields must be present. */
+	HeaderMatcher(String[][] aliases, int requiredFields) {
+		this.aliases = aliases;
+		this.requiredFields = requiredFields;
+		for (int f = 0; f < aliases.length; f++) {
+			for (int a = 0; a < aliases[f].length; a++) {
+				index(exact, aliases[f][a], f << 8 | a);
+				index(normalized, ArabicText.normalize(aliases[f][a]), f << 8 | a);
+			}
+		}
+	}
+
+	private static void index(Map<String, int[]> map, String key, int entry) {
+		int[] old = map.get(key);
+		int[] entries = old == null ? new int[1] : Arrays.copyOf(old, old.length + 1);
+		entries[entries.length - 1] = entry;
+		map.put(key, entries);
+	}
+
+	/** Columns of {@code cells} read as a header row, or null when a required field has no column. */
+	Columns match(String[] cells) {
+		int fields = aliases.length;
+		int[] column = new int[fields];
+		int[] rank = new int[fields];
+		Arrays.fill(column, -1);
+		Arrays.fill(rank, Integer.MAX_VALUE);
+		boolean[] matched = new boolean[cells.length];
+		String[] keys = new String[cells.length];
+		for (int c = 0; c < cells.length; c++) {
+			if (cells[c] == null || cells[c].trim().isEmpty()) continue;
+			keys[c] = cells[c].trim();
+			matched[c] = resolve(exact.get(keys[c]), c, 0, column, rank);
+		}
+		for (int c = 0; c < cells.length; c++) {
+			if (keys[c] == null) continue;
+			matched[c] |= resolve(normalized.get(ArabicText.normalize(keys[c])), c, 1 << 16, column, rank);
+		}
+		for (int f = 0; f < requiredFields; f++) if (column[f] < 0) return null;
+		List<String> unmatched = new ArrayList<>();
+		for (int c = 0; c < cells.length; c++) if (keys[c] != null && !matched[c]) unmatched.add(keys[c]);
+		return new Columns(column, unmatched);
+	}
+
+	private static boolean resolve(int[] entries, int c, int penalty, int[] column, int[] rank) {
+		if (entries == null) return false;
+		for (int e : entries) {
+			int f = e >>> 8;
+			int r = penalty | (e & 0xff);
+			if (r <= rank[f]) {
+				rank[f] = r;
+				column[f] = c;
+			}
+		}
+		return true;
+	}
+
+	IllegalArgumentException missingColumns() {
+		// Build friendly message listing any one from each group
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < requiredFields; i++) {
+			if (i > 0) sb.append(", ");
+			sb.append(String.join("/", aliases[i]));
+		}
+		return new IllegalArgumentException("Missing required columns: " + sb.toString());
+	}
+
+	/** A resolved header: the column of each field, -1 when absent, and the headers no field claimed. */
+	static final class Columns {
+		private final int[] column;
+		final List<String> unmatched;
+
+		private Columns(int[] column, List<String> unmatched) {
+			this.column = column;
+			this.unmatched = unmatched;
+		}
+
+		boolean has(int field) {
+			return column[field] >= 0;
+		}
+
+		String get(String[] cells, int field) {
+			int c = column[field];
+			return c < 0 || c >= cells.length ? "" : cells[c];
+		}
+
+		<T> T get(T[] typed, int field) {
+			int c = column[field];
+			return typed == null || c < 0 || c >= typed.length ? null : typed[c];
+		}
+	}
+}
@@ -0,0 +1,305 @@
+package com.supervisor.assignment.io;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Event-model reading of .xlsx sheets: rows are decoded from the sheet XML as it streams past and
+ * handed on one at a time, so memory stays flat however long the sheet is; only the shared strings
+ * are held. Cells come out as the DOM reader renders them, formulas as the results saved with them.
+ */
+final class StreamingSheetReader implements AutoCloseable {
+
+	/**
+	 * Receives each row present in the sheet, in order; {@code r} is the 0-based row index. Date-formatted
+	 * cells also come decoded in {@code dates}, which is null for a row that has none.
+	 */
+	interface RowHandler {
+		void row(int r, String[] cells, LocalDateTime[] dates);
+	}
+
+	private final OPCPackage pkg;
+	private final boolean ownsPackage;
+	private final XSSFReader reader;
+	private final ReadOnlySharedStringsTable strings;
+	private final StylesTable styles;
+	private final Map<String, String> sheetRelIds = new LinkedHashMap<>(); // sheet name -> relation id, workbook order
+	private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+	private boolean date1904;
+	private boolean stopAtUncachedFormula;
+
+	StreamingSheetReader(File file) throws IOException {
+		this(open(file), true);
+	}
+
+	/** Reads from a package the caller opened; {@link #close} leaves it open. */
+	StreamingSheetReader(OPCPackage pkg) throws IOException {
+		this(pkg, false);
+	}
+
+	private StreamingSheetReader(OPCPackage pkg, boolean ownsPackage) throws IOException {
+		this.pkg = pkg;
+		this.ownsPackage = ownsPackage;
+		try {
+			reader = new XSSFReader(pkg);
+			strings = new ReadOnlySharedStringsTable(pkg, false);
+			styles = reader.getStylesTable();
+			try (InputStream in = reader.getWorkbookData()) {
+				parse(in, new WorkbookHandler());
+			}
+		} catch (OpenXML4JException | SAXException e) {
+			close();
+			throw new IOException("Not a readable .xlsx file", e);
+		} catch (IOException | RuntimeException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/** Opens a workbook file read-only, as {@link WorkbookPipeline} and the file-based reads do. */
+	static OPCPackage open(File file) throws IOException {
+		try {
+			return OPCPackage.open(file, PackageAccess.READ);
+		} catch (OpenXML4JException e) {
+			throw new IOException("Not a readable .xlsx file: " + file, e);
+		}
+	}
+
+	/**
+	 * Streams the first sheet found under any of {@code names}, matched ignoring case as
+	 * {@code XSSFWorkbook.getSheet} does; false when there is none.
+	 */
+	boolean readSheet(List<String> names, RowHandler handler) throws IOException {
+		String relId = null;
+		for (String n : names) {
+			for (Map.Entry<String, String> e : sheetRelIds.entrySet()) {
+				if (e.getKey().equalsIgnoreCase(n)) { relId = e.getValue(); break; }
+			}
+			if (relId != null) break;
+		}
+		if (relId == null) return false;
+		try (InputStream in = reader.getSheet(relId)) {
+			parse(in, new SheetHandler(handler));
+		} catch (OpenXML4JException | SAXException e) {
+			if (e.getCause() instanceof UncachedFormulaException) throw (UncachedFormulaException) e.getCause();
+			throw new IOException("Unreadable sheet " + names.get(0), e);
+		}
+		return true;
+	}
+
+	/** Makes {@link #readSheet} fail with {@link UncachedFormulaException} rather than read a formula without a saved result as blank. */
+	void setStopAtUncachedFormula(boolean stop) {
+		this.stopAtUncachedFormula = stop;
+	}
+
+	@Override
+	public void close() {
+		if (ownsPackage) pkg.revert();
+	}
+
+	private static void parse(InputStream in, DefaultHandler handler) throws IOException, SAXException {
+		try {
+			XMLReader xml = XMLHelper.newXMLReader();
+			xml.setContentHandler(handler);
+			xml.parse(new InputSource(in));
+		} catch (ParserConfigurationException e) {
+			throw new IOException("No SAX parser available", e);
+		}
+	}
+
+	private static String name(String localName, String qName) {
+		return localName == null || localName.isEmpty() ? qName.substring(qName.indexOf(':') + 1) : localName;
+	}
+
+	private final class WorkbookHandler extends DefaultHandler {
+		private boolean seenProperties;
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) {
+			String el = name(localName, qName);
+			if (el.equals("workbookPr") && !seenProperties) {
+				seenProperties = true; // the first one counts, as in XSSFWorkbook
+				String v = atts.getValue("date1904");
+				date1904 = "1".equals(v) || "true".equalsIgnoreCase(v);
+			} else if (el.equals("sheet")) {
+				String relId = null;
+				for (int i = 0; i < atts.getLength(); i++) {
+					if (name(atts.getLocalName(i), atts.getQName(i)).equals("id")) relId = atts.getValue(i);
+				}
+				if (relId != null) sheetRelIds.put(atts.getValue("name"), relId);
+			}
+		}
+	}
+
+	// Decodes <row>/<c> elements; cell types and date detection follow XSSFCell
+	private final class SheetHandler extends DefaultHandler {
+		private final RowHandler handler;
+		private final List<String> cells = new ArrayList<>();
+		private final List<LocalDateTime> dates = new ArrayList<>();
+		private LocalDateTime date;
+		private final StringBuilder text = new StringBuilder();
+		private final StringBuilder inline = new StringBuilder();
+		private int rowIndex = -1;
+		private int col;
+		private String type;
+		private int style;
+		private boolean formula;
+		private String value;
+		private boolean inValue;
+		private boolean inInlineText;
+		private int phoneticDepth;
+
+		SheetHandler(RowHandler handler) {
+			this.handler = handler;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes atts) {
+			switch (name(localName, qName)) {
+				case "row": {
+					String r = atts.getValue("r");
+					rowIndex = r == null ? rowIndex + 1 : Integer.parseInt(r) - 1;
+					cells.clear();
+					dates.clear();
+					col = -1;
+					break;
+				}
+				case "c": {
+					String ref = atts.getValue("r");
+					col = ref == null ? col + 1 : columnOf(ref);
+					type = atts.getValue("t");
+					String s = atts.getValue("s");
+					style = s == null ? 0 : Integer.parseInt(s);
+					formula = false;
+					value = null;
+					inline.setLength(0);
+					date = null;
+					break;
+				}
+				case "f":
+					formula = true;
+					break;
+				case "v":
+					inValue = true;
+					text.setLength(0);
+					break;
+				case "rPh":
+					phoneticDepth++;
+					break;
+				case "t":
+					if (phoneticDepth == 0) inInlineText = true;
+					break;
+				default:
+					break;
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) throws SAXException {
+			switch (name(localName, qName)) {
+				case "v":
+					inValue = false;
+					value = text.toString();
+					break;
+				case "t":
+					inInlineText = false;
+					break;
+				case "rPh":
+					phoneticDepth--;
+					break;
+				case "c":
+					if (formula && value == null && stopAtUncachedFormula) {
+						throw new SAXException(new UncachedFormulaException(rowIndex, col));
+					}
+					while (cells.size() <= col) cells.add("");
+					cells.set(col, cellString());
+					if (date != null) {
+						while (dates.size() <= col) dates.add(null);
+						dates.set(col, date);
+					}
+					break;
+				case "row":
+					handler.row(rowIndex, cells.toArray(new String[0]), dates.isEmpty() ? null : dates.toArray(new LocalDateTime[0]));
+					break;
+				default:
+					break;
+			}
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			if (inValue) text.append(ch, start, length);
+			else if (inInlineText) inline.append(ch, start, length);
+		}
+
+		private String cellString() {
+			if (formula && value == null) return ""; // no result saved with the formula
+			if (type == null || type.equals("n")) {
+				if (value == null) return ""; // blank
+				double v = value.isEmpty() ? 0.0 : Double.parseDouble(value);
+				if (isDateFormatted(v)) {
+					date = CellValues.excelDateTime(v, date1904);
+					return date.toLocalDate().toString();
+				}
+				if (Math.floor(v) == v) return Long.toString((long) v);
+				return Double.toString(v);
+			}
+			switch (type) {
+				case "s":
+					return value == null || value.isEmpty() ? "" : strings.getItemAt(Integer.parseInt(value.trim())).getString();
+				case "inlineStr":
+					return value != null ? value : inline.toString();
+				case "str":
+					return value == null ? "" : value;
+				case "b":
+					return Boolean.toString("1".equals(value));
+				default:
+					return ""; // errors
+			}
+		}
+
+		private boolean isDateFormatted(double v) {
+			if (!DateUtil.isValidExcelDate(v) || styles == null || styles.getNumCellStyles() == 0) return false;
+			return dateStyles.computeIfAbsent(style, i -> {
+				XSSFCellStyle cs = styles.getStyleAt(i);
+				return cs != null && DateUtil.isADateFormat(cs.getDataFormat(), cs.getDataFormatString());
+			});
+		}
+	}
+
+	/** A formula cell was saved without its result, so only an evaluator can read it. */
+	static final class UncachedFormulaException extends IOException {
+		UncachedFormulaException(int row, int col) {
+			super("Formula without a saved result at row " + (row + 1) + ", column " + (col + 1));
+		}
+	}
+
+	private static int columnOf(String ref) {
+		int c = 0;
+		for (int i = 0; i < ref.length(); i++) {
+			char ch = ref.charAt(i);
+			if (ch < 'A' || ch > 'Z') break;
+			c = c * 26 + (ch - 'A' + 1);
+		}
+		return c - 1;
+	}
+}
@@ -0,0 +1,84 @@
+package com.supervisor.assignment.io;
+
+import com.supervisor.assignment.logic.AssignmentEngine;
+import com.supervisor.assignment.model.AssignmentResult;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Read, solve and write around a single opening of the input workbook. The package is opened once,
+ * read-only: the input sheets are streamed from it, and the xlsx output copies them from it without
+ * parsing them again. Every output is written from one result, the PDF alongside the workbook.
+ */
+public class WorkbookPipeline implements AutoCloseable {
+	private final File input;
+	private final ExcelReaderWriter readerWriter = new ExcelReaderWriter();
+	private boolean readAssignments;
+	private File xlsxOutput;
+	private File pdfOutput;
+	private OPCPackage pkg;
+	private boolean written;
+	private ExcelReaderWriter.ParsedInput parsed;
+
+	public WorkbookPipeline(File input) {
+		this.input = input;
+	}
+
+	/** Parses the input; the parsed form is kept, so callers may adjust its config before solving. */
+	public ExcelReaderWriter.ParsedInput read() throws IOException {
+		if (parsed != null) return parsed;
+		if (pkg == null) pkg = StreamingSheetReader.open(input);
+		parsed = readerWriter.readWorkbook(pkg, readAssignments);
+		return parsed;
+	}
+
+	public AssignmentResult solve(AssignmentEngine engine) throws IOException {
+		ExcelReaderWriter.ParsedInput pi = read();
+		return engine.assign(pi.sessions, pi.supervisors, pi.config, pi.assignments);
+	}
+
+	/** Writes the configured outputs of {@code result}; this runs once. */
+	public void write(AssignmentResult result) throws Exception {
+		read();
+		if (written) throw new IllegalStateException("The outputs have already been written");
+		written = true;
+		ForkJoinTask<Void> pdf = null;
+		if (pdfOutput != null) {
+			pdf = ForkJoinTask.adapt(() -> {
+				new PdfExporter().exportArabic(pdfOutput, result);
+				return null;
+			});
+			if (xlsxOutput != null) pdf.fork();
+			else pdf.invoke();
+		}
+		if (xlsxOutput != null) {
+			try {
+				readerWriter.writeOutput(pkg, xlsxOutput, result);
+			} finally {
+				if (pdf != null) pdf.quietlyJoin();
+			}
+		}
+		if (pdf != null) pdf.join();
+	}
+
+	@Override
+	public void close() {
+		if (pkg != null) {
+			pkg.revert();
+			pkg = null;
+		}
+	}
+
+	public File getInput() { return input; }
+	public boolean isReadAssignments() { return readAssignments; }
+	public void setReadAssignments(boolean readAssignments) { this.readAssignments = readAssignments; }
+	public File getXlsxOutput() { return xlsxOutput; }
+	public void setXlsxOutput(File xlsxOutput) { this.xlsxOutput = xlsxOutput; }
+	public File getPdfOutput() { return pdfOutput; }
+	public void setPdfOutput(File pdfOutput) { this.pdfOutput = pdfOutput; }
+	public boolean isEvaluateFormulas() { return readerWriter.isEvaluateFormulas(); }
+	public void setEvaluateFormulas(boolean evaluateFormulas) { readerWriter.setEvaluateFormulas(evaluateFormulas); }
+}
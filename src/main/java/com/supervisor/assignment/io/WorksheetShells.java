@@ -0,0 +1,107 @@
+package com.supervisor.assignment.io;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.ZipPackage;
+import org.apache.poi.openxml4j.util.ZipEntrySource;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * An output template made from an input package without parsing its worksheets. The template is a
+ * copy of the package in which every worksheet, except those named to be kept whole, is empty, so
+ * loading it costs only the workbook-level parts. Once the output has been written from it, the
+ * original worksheets are copied back in byte for byte. Styles and shared strings keep their indices
+ * in the template, so the copied sheets still refer to the right entries.
+ */
+final class WorksheetShells implements Closeable {
+	private static final byte[] EMPTY_WORKSHEET = ("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+		+ "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData/></worksheet>")
+		.getBytes(StandardCharsets.UTF_8);
+
+	private final ZipEntrySource source;
+	private final Set<String> emptied = new HashSet<>(); // zip entry names of the worksheets left out
+	private final File shell;
+	private OPCPackage shellPackage;
+
+	/** {@code keepWhole}: sheet names, matched ignoring case, whose rows the caller reads or extends. */
+	WorksheetShells(OPCPackage input, Collection<String> keepWhole) throws IOException {
+		if (!(input instanceof ZipPackage)) throw new IllegalArgumentException("Not a zip-based package");
+		this.source = ((ZipPackage) input).getZipArchive();
+		try {
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) new XSSFReader(input).getSheetsData();
+			while (sheets.hasNext()) {
+				sheets.next().close();
+				PackagePart part = sheets.getSheetPart();
+				if (!XSSFRelation.WORKSHEET.getContentType().equals(part.getContentType())) continue;
+				if (keepWhole.stream().anyMatch(sheets.getSheetName()::equalsIgnoreCase)) continue;
+				String entry = part.getPartName().getName().substring(1);
+				if (source.getEntry(entry) != null) emptied.add(entry);
+			}
+		} catch (OpenXML4JException e) {
+			throw new IOException("Not a readable .xlsx file", e);
+		}
+		this.shell = File.createTempFile("template", ".xlsx");
+		try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(shell)))) {
+			for (ZipArchiveEntry entry : Collections.list(source.getEntries())) {
+				out.putNextEntry(new ZipEntry(entry.getName()));
+				if (emptied.contains(entry.getName())) {
+					out.write(EMPTY_WORKSHEET);
+				} else {
+					try (InputStream in = source.getInputStream(entry)) {
+						in.transferTo(out);
+					}
+				}
+				out.closeEntry();
+			}
+		}
+	}
+
+	/** The workbook to write the output from; only its own parts are held in memory. */
+	XSSFWorkbook template() throws IOException {
+		if (shellPackage == null) {
+			try {
+				shellPackage = OPCPackage.open(shell, PackageAccess.READ_WRITE);
+			} catch (OpenXML4JException e) {
+				throw new IOException("Unreadable workbook template", e);
+			}
+		}
+		return new XSSFWorkbook(shellPackage);
+	}
+
+	/**
+	 * Copies {@code written} to {@code output}, putting back the original worksheets among
+	 * {@code keptParts}, the part names of the template sheets the output still holds.
+	 */
+	void restore(File written, Set<String> keptParts, File output) throws IOException {
+		try (ZipFile in = new ZipFile(written);
+			 ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+			for (ZipEntry entry : Collections.list(in.entries())) {
+				out.putNextEntry(new ZipEntry(entry.getName()));
+				boolean original = emptied.contains(entry.getName()) && keptParts.contains("/" + entry.getName());
+				try (InputStream data = original ? source.getInputStream(source.getEntry(entry.getName())) : in.getInputStream(entry)) {
+					data.transferTo(out);
+				}
+				out.closeEntry();
+			}
+		}
+	}
+
+	/** Drops the template without saving it back. */
+	@Override
+	public void close() {
+		if (shellPackage != null) shellPackage.revert();
+		if (!shell.delete()) shell.deleteOnExit();
+	}
+}
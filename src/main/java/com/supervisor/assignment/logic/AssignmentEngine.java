@@ -4,15 +4,250 @@ import com.supervisor.assignment.model.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
 public class AssignmentEngine {
+	private ProgressListener progressListener;
+	private CancellationToken cancellationToken;
+
+	/** Receives phase transitions and slot counts of later calls; null for none. */
+	public void setProgressListener(ProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	/**
+	 * Lets another thread stop later calls. A stopped call, like one past
+	 * {@link Config#getMaxSolveMillis()}, returns the primaries found so far with
+	 * {@link AssignmentResult#isStoppedEarly()} set.
+	 */
+	public void setCancellationToken(CancellationToken cancellationToken) {
+		this.cancellationToken = cancellationToken;
+	}
 
 	public AssignmentResult assign(List<SubjectSession> sessions, List<Supervisor> supervisors, Config config) {
 		AssignmentResult result = new AssignmentResult();
 		if (sessions == null || supervisors == null) {
 			throw new IllegalArgumentException("Sessions and supervisors must not be null");
 		}
+		long started = System.nanoTime();
+		Config settings = config == null ? new Config() : config;
+		SolveControl control = new SolveControl(progressListener, cancellationToken, settings.getMaxSolveMillis());
+		SolveMeter meter = new SolveMeter();
+		Prepared prepared = prepare(sessions, supervisors, settings, result, control, meter);
+		CompiledProblem p = prepared.problem;
+		int[][] roleOrder = prepared.roleOrder;
+
+		// Multi-start: run 0 uses the configured seed (name order when unset), later runs derived
+		// seeds; runs share the compiled problem and the best one is kept
+		int runCount = Math.max(1, settings.getMultiStartRuns());
+		Long baseSeed = settings.getRandomSeed();
+		Run[] runs = new Run[runCount];
+		List<ForkJoinTask<?>> runTasks = new ArrayList<>();
+		for (int i = 0; i < runCount; i++) {
+			int run = i;
+			Long seed = i == 0 ? baseSeed : Long.valueOf((baseSeed == null ? 0L : baseSeed) + i * 0x9E3779B97F4A7C15L);
+			runTasks.add(ForkJoinTask.adapt(() -> runs[run] = solve(p, roleOrder, settings, seed, control)));
+		}
+		ForkJoinTask.invokeAll(runTasks);
+		Run best = runs[0];
+		for (Run run : runs) {
+			if (run.notAssigned < best.notAssigned || (run.notAssigned == best.notAssigned && run.spread < best.spread)) best = run;
+		}
+		result.setSeed(best.seed);
+		for (RoleSolver solver : best.solvers) {
+			if (solver == null || solver.improvement == null) continue;
+			AssignmentResult.ImprovementSummary part = solver.improvement;
+			AssignmentResult.ImprovementSummary sum = result.getImprovement();
+			if (sum == null) {
+				result.setImprovement(part);
+				continue;
+			}
+			sum.setUnfilledSlotsBefore(sum.getUnfilledSlotsBefore() + part.getUnfilledSlotsBefore());
+			sum.setUnfilledSlotsAfter(sum.getUnfilledSlotsAfter() + part.getUnfilledSlotsAfter());
+			sum.setSquaredDeviationBefore(sum.getSquaredDeviationBefore() + part.getSquaredDeviationBefore());
+			sum.setSquaredDeviationAfter(sum.getSquaredDeviationAfter() + part.getSquaredDeviationAfter());
+			sum.setMovesApplied(sum.getMovesApplied() + part.getMovesApplied());
+			sum.setElapsedMillis(Math.max(sum.getElapsedMillis(), part.getElapsedMillis()));
+		}
+		// The stats describe the kept run; the work of all runs is a separate total
+		SolveMeter allRuns = new SolveMeter();
+		for (Run run : runs) addMeters(allRuns, run.solvers);
+		addMeters(meter, best.solvers);
+		finish(result, p, best.ledger, best.solvers, control, meter);
+		SolveStats stats = meter.toStats(System.nanoTime() - started);
+		stats.setRuns(runCount);
+		stats.setAllRunsSlotsProcessed(allRuns.slots);
+		stats.setAllRunsCandidatesScanned(allRuns.candidates);
+		result.setSolveStats(stats);
+		return result;
+	}
+
+	/**
+	 * Warm start from a partial assignment, such as the hand-edited assignments sheet of an
+	 * earlier output. With {@link Config#isPreserveManualOverrides()} set, every seeded primary
+	 * that is still feasible is locked in and only the remaining slots are solved; otherwise, or
+	 * without a seed, this is a full {@link #assign(List, List, Config)}.
+	 */
+	public AssignmentResult assign(List<SubjectSession> sessions, List<Supervisor> supervisors, Config config, AssignmentResult seed) {
+		if (seed == null || config == null || !config.isPreserveManualOverrides()) return assign(sessions, supervisors, config);
+		return repair(seed, sessions, supervisors, config, new RepairDelta());
+	}
+
+	/**
+	 * Repairs a previous result after late changes instead of solving again. Assignments the
+	 * delta does not invalidate are kept as they are; only sessions that lost a primary, or were
+	 * added or moved, are solved again, promoting their own backups first. {@code sessions} and
+	 * {@code supervisors} are the inputs {@code previous} was built from.
+	 */
+	public AssignmentResult repair(AssignmentResult previous, List<SubjectSession> sessions, List<Supervisor> supervisors,
+			Config config, RepairDelta delta) {
+		if (previous == null || sessions == null || supervisors == null || delta == null) {
+			throw new IllegalArgumentException("Previous result, sessions, supervisors and delta must not be null");
+		}
+		Set<SubjectSession> inputs = Collections.newSetFromMap(new IdentityHashMap<>());
+		inputs.addAll(sessions);
+		Map<String, AssignmentResult.SessionAssignment> previousByKey = new HashMap<>();
+		for (AssignmentResult.SessionAssignment sa : previous.getSessionAssignments()) {
+			previousByKey.put(slotKey(sa.getSession(), inputs.contains(sa.getSession())), sa);
+		}
+		Map<String, List<String>> previousBackups = new HashMap<>();
+		for (AssignmentResult.BackupAssignment ba : previous.getBackupAssignments()) {
+			String key = ba.getRole() == RoleType.FLOOR_SUPERVISOR
+				? "F|" + ba.getDate() + "|" + ba.getPeriod() + "|" + ba.getBuilding()
+				: "S|" + ba.getSessionId();
+			previousBackups.computeIfAbsent(key, k -> new ArrayList<>()).add(ba.getSupervisor());
+		}
+
+		// Apply the delta to copies of the inputs
+		Map<String, SubjectSession> moved = new HashMap<>();
+		for (SubjectSession s : delta.getMovedSessions()) moved.put(s.getId(), s);
+		List<SubjectSession> repairedSessions = new ArrayList<>(sessions.size() + delta.getAddedSessions().size());
+		for (SubjectSession s : sessions) repairedSessions.add(moved.getOrDefault(s.getId(), s));
+		repairedSessions.addAll(delta.getAddedSessions());
+		List<Supervisor> repairedSupervisors = new ArrayList<>(supervisors.size());
+		for (Supervisor sup : supervisors) {
+			if (delta.getRemovedSupervisors().contains(sup.getName())) continue;
+			Set<DayOfWeekEnum> days = delta.getAvailabilityChanges().get(sup.getName());
+			if (days == null) {
+				repairedSupervisors.add(sup);
+				continue;
+			}
+			Supervisor copy = new Supervisor();
+			copy.setName(sup.getName());
+			copy.setAvailableDays(days);
+			copy.setMaxHours(sup.getMaxHours());
+			copy.setLoadPercentage(sup.getLoadPercentage());
+			copy.setRole(sup.getRole());
+			copy.setExcludedSubjects(sup.getExcludedSubjects());
+			repairedSupervisors.add(copy);
+		}
+
+		long started = System.nanoTime();
+		AssignmentResult result = new AssignmentResult();
+		Config settings = config == null ? new Config() : config;
+		SolveControl control = new SolveControl(progressListener, cancellationToken, settings.getMaxSolveMillis());
+		SolveMeter meter = new SolveMeter();
+		Prepared prepared = prepare(repairedSessions, repairedSupervisors, settings, result, control, meter);
+		CompiledProblem p = prepared.problem;
+		Map<String, Integer> supervisorIndex = new HashMap<>();
+		for (int sup = p.supervisorCount - 1; sup >= 0; sup--) supervisorIndex.put(p.supervisorNames[sup], sup);
+		AssignmentLedger ledger = new AssignmentLedger(p);
+		RoleSolver[] solvers = createSolvers(p, prepared.roleOrder, ledger, settings, p.supervisorNameRank, control);
+
+		// Keep every previous assignment that is still valid; a session losing a primary is touched
+		// and solved again, one losing a backup gets it refilled
+		boolean[] touched = new boolean[p.sessionCount];
+		boolean[] refill = new boolean[p.sessionCount];
+		boolean[] forced = new boolean[p.sessionCount];
+		for (int s = 0; s < p.sessionCount; s++) {
+			SubjectSession session = p.sessions[s];
+			boolean input = s < p.inputSessionCount;
+			AssignmentResult.SessionAssignment before = input && moved.containsKey(session.getId()) ? null : previousByKey.get(slotKey(session, input));
+			if (before == null) {
+				touched[s] = true;
+				continue;
+			}
+			SolverState st = solvers[p.sessionRole[s]].state();
+			for (String name : before.getAssignedSupervisors()) {
+				int sup = supervisorIndex.getOrDefault(name, CompiledProblem.NONE);
+				if (sup == CompiledProblem.NONE || p.supervisorRole[sup] != p.sessionRole[s] || ledger.primaryCount(s) >= p.sessionRequired[s]
+						|| !st.isFree(sup, s) || (delta.getAvailabilityChanges().containsKey(name) && !BitSets.get(p.availableMask(p.sessionDay[s]), sup))) {
+					touched[s] = true;
+					continue;
+				}
+				ledger.addPrimary(s, sup);
+				st.book(sup, s);
+			}
+			forced[s] = !touched[s] && RoleSolver.AUTO_BACKFILL.equals(before.getReason());
+			refill[s] = touched[s];
+		}
+		boolean withoutBackups = previous.getBackupAssignments().isEmpty();
+		for (int s = 0; s < p.floorSlotEnd; s++) {
+			boolean input = s < p.inputSessionCount;
+			if (input && moved.containsKey(p.sessions[s].getId())) continue;
+			List<String> names = previousBackups.get(slotKey(p.sessions[s], input));
+			if (names == null) {
+				refill[s] |= withoutBackups;
+				continue;
+			}
+			int role = (input ? RoleType.INVIGILATOR : RoleType.FLOOR_SUPERVISOR).ordinal();
+			if (solvers[role] == null) continue;
+			SolverState st = solvers[role].state();
+			for (String name : names) {
+				int sup = supervisorIndex.getOrDefault(name, CompiledProblem.NONE);
+				if (sup == CompiledProblem.NONE || p.supervisorRole[sup] != role || !st.isFree(sup, s)
+						|| (delta.getAvailabilityChanges().containsKey(name) && !BitSets.get(p.dayMask[p.dateDay[p.sessionDate[s]]], sup))) {
+					refill[s] = true;
+					continue;
+				}
+				ledger.addBackup(s, sup);
+				st.book(sup, s);
+			}
+		}
+
+		List<ForkJoinTask<?>> tasks = new ArrayList<>();
+		for (int r = 0; r < solvers.length; r++) {
+			RoleSolver solver = solvers[r];
+			if (solver == null) continue;
+			int[] roleSessions = prepared.roleOrder[r];
+			tasks.add(ForkJoinTask.adapt(() -> solver.repair(roleSessions, touched, refill, forced)));
+		}
+		ForkJoinTask.invokeAll(tasks);
+		addMeters(meter, solvers);
+		finish(result, p, ledger, solvers, control, meter);
+		result.setSolveStats(meter.toStats(System.nanoTime() - started));
+		return result;
+	}
+
+	private static void addMeters(SolveMeter meter, RoleSolver[] solvers) {
+		for (RoleSolver solver : solvers) {
+			if (solver != null) meter.add(solver.meter);
+		}
+	}
+
+	/**
+	 * The key {@link #repair} matches a session by across solves: input sessions by id, generated
+	 * floor and maintenance slots by the date, period and building they are built from.
+	 */
+	public static String slotKey(SubjectSession session, boolean input) {
+		if (input) return "S|" + session.getId();
+		if (session.getRequiredRole() == RoleType.FLOOR_SUPERVISOR) {
+			return "F|" + session.getDate() + "|" + session.getPeriod() + "|" + session.getBuilding();
+		}
+		return "M|" + session.getDate();
+	}
+
+	// Compiled problem and each role's sessions in global slot order
+	private static final class Prepared {
+		CompiledProblem problem;
+		int[][] roleOrder;
+	}
+
+	private Prepared prepare(List<SubjectSession> sessions, List<Supervisor> supervisors, Config settings, AssignmentResult result,
+			SolveControl control, SolveMeter meter) {
+		meter.enter(SolvePhase.FLOOR_SLOTS, -1, sessions.size());
+		control.phase(SolvePhase.FLOOR_SLOTS, -1, sessions.size());
 		// Build floor-supervisor slots per (date, period, building)
 		// المشرف الدور مسؤول عن المباني/الأدوار
 		List<SubjectSession> floorSlots = new ArrayList<>();
@@ -42,6 +277,8 @@ public class AssignmentEngine {
 		}
 
 		// Build maintenance staff daily assignments
+		meter.enter(SolvePhase.MAINTENANCE_SLOTS, -1, sessions.size());
+		control.phase(SolvePhase.MAINTENANCE_SLOTS, -1, sessions.size());
 		List<SubjectSession> maintenanceSlots = createMaintenanceSlots(sessions, supervisors);
 		
 		List<SubjectSession> allSessions = new ArrayList<>();
@@ -80,367 +317,164 @@ public class AssignmentEngine {
 		// keep a single target for logging; use invigilator target
 		result.setTargetHoursPerSupervisor(basePerInvigilatorUnit);
 
-		// Build per-supervisor state
-		Map<String, Double> supervisorToTotalHours = new HashMap<>();
-		Map<String, Map<LocalDate, List<LocalTime[]>>> schedule = new HashMap<>();
-		Map<String, Double> supervisorExpectedHours = new HashMap<>();
-		for (Supervisor sup : supervisors) {
-			supervisorToTotalHours.put(sup.getName(), 0.0);
-			schedule.put(sup.getName(), new HashMap<>());
-			double units = (sup.getLoadPercentage() == null ? 1.0 : sup.getLoadPercentage() / 100.0);
-			double expected;
-			if (sup.getRole() == RoleType.FLOOR_SUPERVISOR) {
-				expected = basePerFloorUnit * units;
-			} else if (sup.getRole() == RoleType.MAINTENANCE) {
-				expected = basePerMaintenanceUnit * units;
-			} else {
-				expected = basePerInvigilatorUnit * units;
-			}
-			supervisorExpectedHours.put(sup.getName(), expected);
+		double[] basePerUnit = new double[CompiledProblem.ROLE_SLOTS];
+		basePerUnit[RoleType.INVIGILATOR.ordinal()] = basePerInvigilatorUnit;
+		basePerUnit[RoleType.FLOOR_SUPERVISOR.ordinal()] = basePerFloorUnit;
+		basePerUnit[RoleType.MAINTENANCE.ordinal()] = basePerMaintenanceUnit;
+		meter.enter(SolvePhase.ELIGIBILITY, -1, allSessions.size()); // compiling the masks is most of the eligibility work
+		CompiledProblem p = CompiledProblem.compile(allSessions, sessions.size(), floorSlots.size(), supervisors, basePerUnit);
+
+		// Precompute eligibility counts: role & available day & not excluded
+		control.phase(SolvePhase.ELIGIBILITY, -1, p.sessionCount);
+		int[] eligibilityCount = new int[p.sessionCount];
+		for (int s = 0; s < p.sessionCount; s++) {
+			long[] roles = p.roleMask[p.sessionRole[s]];
+			long[] days = p.availableMask(p.sessionDay[s]);
+			long[] excluded = p.excludedMask[p.sessionSubject[s]];
+			int eligible = 0;
+			for (int w = 0; w < roles.length; w++) eligible += Long.bitCount(roles[w] & days[w] & ~excluded[w]);
+			eligibilityCount[s] = eligible;
 		}
 
-		final double FAIRNESS_CAP = 1.0; // prefer under or at 100% of expected
-		java.util.function.Function<String, Double> loadRatio = name -> {
-			double exp = Math.max(0.1, supervisorExpectedHours.getOrDefault(name, 0.0));
-			return supervisorToTotalHours.getOrDefault(name, 0.0) / exp;
-		};
-
-		// Expand session slots
-		List<SubjectSession> slots = new ArrayList<>();
-		for (SubjectSession s : allSessions) {
-			int k = Math.max(1, s.getSupervisorsRequired());
-			for (int i = 0; i < k; i++) slots.add(s);
+		// Sort by duration desc, then eligibility asc, keeping input order for ties.
+		// Packed as (minutes desc | eligibility | index) so a primitive sort is stable.
+		long[] order = new long[p.sessionCount];
+		for (int s = 0; s < p.sessionCount; s++) {
+			long durationKey = 4095 - (Math.max(-2048, Math.min(2047, p.sessionMinutes[s])) + 2048);
+			order[s] = (durationKey << 51) | ((long) Math.min(eligibilityCount[s], (1 << 25) - 1) << 26) | s;
 		}
+		Arrays.sort(order);
 
-		// Precompute eligibility counts
-		Map<SubjectSession, Integer> eligibilityCount = new HashMap<>();
-		for (SubjectSession s : allSessions) {
-			int eligible = (int) supervisors.stream().filter(sup -> isEligible(s, sup, config)).count();
-			eligibilityCount.put(s, eligible);
+		// Split the slot order by role; roles never share supervisors, so each is solved independently
+		int[][] roleOrder = new int[CompiledProblem.ROLE_SLOTS][];
+		int[] roleSize = new int[CompiledProblem.ROLE_SLOTS];
+		for (int s = 0; s < p.sessionCount; s++) roleSize[p.sessionRole[s]]++;
+		for (int r = 0; r < roleOrder.length; r++) roleOrder[r] = new int[roleSize[r]];
+		Arrays.fill(roleSize, 0);
+		for (long packed : order) {
+			int s = (int) (packed & ((1 << 26) - 1));
+			roleOrder[p.sessionRole[s]][roleSize[p.sessionRole[s]]++] = s;
 		}
+		meter.leave();
 
-		// Sort by duration desc, then eligibility asc
-		slots.sort((a, b) -> {
-			int cmp = Double.compare(b.getDurationHours(), a.getDurationHours());
-			if (cmp != 0) return cmp;
-			return Integer.compare(eligibilityCount.getOrDefault(a, Integer.MAX_VALUE), eligibilityCount.getOrDefault(b, Integer.MAX_VALUE));
-		});
-
-		Map<SubjectSession, List<String>> tempAssignments = new HashMap<>();
-
-		for (SubjectSession slot : slots) {
-			List<Supervisor> eligible = supervisors.stream()
-				.filter(sup -> isEligible(slot, sup, config))
-				.filter(sup -> !hasOverlap(schedule.get(sup.getName()), slot))
-				.filter(sup -> withinConsecutiveDaysLimit(schedule.get(sup.getName()), slot))
-				.collect(Collectors.toList());
-			if (eligible.isEmpty()) {
-				// Fallback: relax availability and max-hours to ensure coverage, but still avoid overlaps
-				eligible = supervisors.stream()
-					.filter(sup -> sup.getRole() == slot.getRequiredRole())
-					.filter(sup -> !hasOverlap(schedule.get(sup.getName()), slot))
-					.filter(sup -> withinConsecutiveDaysLimit(schedule.get(sup.getName()), slot))
-					.collect(Collectors.toList());
-				if (eligible.isEmpty()) {
-					tempAssignments.computeIfAbsent(slot, k -> new ArrayList<>());
-					continue;
-				}
-			}
+		Prepared prepared = new Prepared();
+		prepared.problem = p;
+		prepared.roleOrder = roleOrder;
+		return prepared;
+	}
 
-			List<Supervisor> underCap = eligible.stream().filter(s -> loadRatio.apply(s.getName()) <= FAIRNESS_CAP).collect(Collectors.toList());
-			List<Supervisor> pool = underCap.isEmpty() ? eligible : underCap;
-			pool.sort((a, b) -> {
-				double ra = loadRatio.apply(a.getName());
-				double rb = loadRatio.apply(b.getName());
-				int cmp = Double.compare(ra, rb);
-				if (cmp != 0) return cmp;
-				cmp = Integer.compare(schedulePreferenceScore(schedule.get(a.getName()), slot, config), schedulePreferenceScore(schedule.get(b.getName()), slot, config));
-				if (cmp != 0) return cmp;
-				return a.getName().compareTo(b.getName());
-			});
-
-			Supervisor chosen = pool.get(0);
-			tempAssignments.computeIfAbsent(slot, k -> new ArrayList<>()).add(chosen.getName());
-			double newHours = supervisorToTotalHours.get(chosen.getName()) + slot.getDurationHours();
-			supervisorToTotalHours.put(chosen.getName(), newHours);
-			Map<LocalDate, List<LocalTime[]>> dayMap = schedule.get(chosen.getName());
-			LocalDate dateKey = slot.getDate() != null ? slot.getDate() : LocalDate.now();
-			dayMap.computeIfAbsent(dateKey, d -> new ArrayList<>()).add(new LocalTime[]{ slot.getFrom(), slot.getTo() });
+	private void finish(AssignmentResult result, CompiledProblem p, AssignmentLedger ledger, RoleSolver[] solvers, SolveControl control,
+			SolveMeter meter) {
+		for (RoleSolver solver : solvers) {
+			if (solver != null && solver.stopped) result.setStoppedEarly(true);
 		}
-
-		// Backfill any sessions lacking required supervisors by relaxing availability/max-hours but preserving no-overlap
-		for (SubjectSession s : allSessions) {
-			int required = Math.max(1, s.getSupervisorsRequired());
-			List<String> assigned = tempAssignments.entrySet().stream()
-				.filter(e -> e.getKey().equals(s))
-				.flatMap(e -> e.getValue().stream())
-				.collect(Collectors.toList());
-			Set<String> assignedSet = new HashSet<>(assigned);
-			while (assignedSet.size() < required) {
-				List<Supervisor> candidates = supervisors.stream()
-					.filter(sup -> !assignedSet.contains(sup.getName()))
-					.filter(sup -> sup.getRole() == s.getRequiredRole())
-					.filter(sup -> !hasOverlap(schedule.get(sup.getName()), s))
-					.filter(sup -> withinConsecutiveDaysLimit(schedule.get(sup.getName()), s))
-					.collect(Collectors.toList());
-				List<Supervisor> underCap = candidates.stream().filter(x -> loadRatio.apply(x.getName()) <= FAIRNESS_CAP).collect(Collectors.toList());
-				List<Supervisor> pool = underCap.isEmpty() ? candidates : underCap;
-				pool = pool.stream()
-					.sorted(Comparator
-							.comparingDouble((Supervisor sup) -> loadRatio.apply(sup.getName()))
-							.thenComparing((Supervisor sup) -> schedulePreferenceScore(schedule.get(sup.getName()), s, config))
-							.thenComparing(Supervisor::getName))
-					.collect(Collectors.toList());
-				if (pool.isEmpty()) break; // cannot fill further without overlaps
-				Supervisor chosen = pool.get(0);
-				tempAssignments.computeIfAbsent(s, k -> new ArrayList<>()).add(chosen.getName());
-				assignedSet.add(chosen.getName());
-				double newHours = supervisorToTotalHours.get(chosen.getName()) + s.getDurationHours();
-				supervisorToTotalHours.put(chosen.getName(), newHours);
-				Map<LocalDate, List<LocalTime[]>> dayMap = schedule.get(chosen.getName());
-				LocalDate dateKey = s.getDate() != null ? s.getDate() : LocalDate.now();
-				dayMap.computeIfAbsent(dateKey, d -> new ArrayList<>()).add(new LocalTime[]{ s.getFrom(), s.getTo() });
-			}
+		if (result.isStoppedEarly()) {
+			result.getWarnings().add("Solve stopped early (cancelled or time budget reached); the result is partial");
 		}
-
-		// Consolidate per-session results
-		for (SubjectSession s : allSessions) {
-			AssignmentResult.SessionAssignment sa = new AssignmentResult.SessionAssignment();
-			sa.setSession(s);
-			List<String> assigned = tempAssignments.entrySet().stream()
-				.filter(e -> e.getKey().equals(s))
-				.flatMap(e -> e.getValue().stream())
-				.distinct()
-				.collect(Collectors.toList());
-			int req = Math.max(1, s.getSupervisorsRequired());
-			if (assigned.size() == req) {
-				sa.setStatus("Assigned");
-			} else if (assigned.size() > 0) {
-				sa.setStatus("PartiallyAssigned");
-				sa.setReason("Insufficient eligible supervisors or conflicts");
-			} else {
-				// After backfill, try to force assign one minimal-overlap candidate (still avoiding overlaps may leave none)
-				List<Supervisor> candidates = supervisors.stream()
-					.filter(sup -> sup.getRole() == s.getRequiredRole())
-					.filter(sup -> !hasOverlap(schedule.get(sup.getName()), s))
-					.filter(sup -> withinConsecutiveDaysLimit(schedule.get(sup.getName()), s))
-					.collect(Collectors.toList());
-				List<Supervisor> underCap = candidates.stream().filter(x -> loadRatio.apply(x.getName()) <= FAIRNESS_CAP).collect(Collectors.toList());
-				List<Supervisor> pool = underCap.isEmpty() ? candidates : underCap;
-				pool = pool.stream()
-					.sorted(Comparator.comparingDouble((Supervisor sup) -> loadRatio.apply(sup.getName())))
-					.collect(Collectors.toList());
-				if (!pool.isEmpty()) {
-					Supervisor chosen = pool.get(0);
-					assigned = new ArrayList<>();
-					assigned.add(chosen.getName());
-					sa.setAssignedSupervisors(assigned);
-					sa.setStatus("PartiallyAssigned");
-					sa.setReason("Auto backfill due to constraints");
-					double newHours = supervisorToTotalHours.get(chosen.getName()) + s.getDurationHours();
-					supervisorToTotalHours.put(chosen.getName(), newHours);
-					Map<LocalDate, List<LocalTime[]>> dayMap = schedule.get(chosen.getName());
-					LocalDate dateKey = s.getDate() != null ? s.getDate() : LocalDate.now();
-					dayMap.computeIfAbsent(dateKey, d -> new ArrayList<>()).add(new LocalTime[]{ s.getFrom(), s.getTo() });
-				} else {
-					sa.setStatus("Unassigned");
-					sa.setReason("No free supervisors (overlap constraint)");
-				}
-			}
-			sa.setAssignedSupervisors(assigned);
-			result.getSessionAssignments().add(sa);
+		// Merge in the sequential order: sessions by index, invigilator backups before floor backups
+		for (int s = 0; s < p.sessionCount; s++) {
+			result.getSessionAssignments().add(solvers[p.sessionRole[s]].sessionAssignments[s]);
 		}
-
-		// Generate backups (احتياطي): for each session, assign backups equal to required count (distinct and not assigned as primary on same session/date)
-		for (SubjectSession s : sessions) {
-			LocalDate date = s.getDate();
-			PeriodOfDay p = s.getPeriod();
-			if (date == null || p == null) continue;
-			Set<String> primaries = result.getSessionAssignments().stream()
-				.filter(sa -> sa.getSession().equals(s))
-				.flatMap(sa -> sa.getAssignedSupervisors().stream())
-				.collect(java.util.stream.Collectors.toSet());
-			List<Supervisor> candidates = supervisors.stream()
-				.filter(sup -> sup.getRole() == RoleType.INVIGILATOR)
-				.filter(sup -> !primaries.contains(sup.getName()))
-				.filter(sup -> sup.getAvailableDays().contains(mapJavaDayToEnum(date.getDayOfWeek())))
-				.filter(sup -> !hasOverlap(schedule.get(sup.getName()), s))
-				.filter(sup -> withinConsecutiveDaysLimit(schedule.get(sup.getName()), date))
-				.collect(Collectors.toList());
-			List<Supervisor> underCap = candidates.stream().filter(x -> loadRatio.apply(x.getName()) <= FAIRNESS_CAP).collect(Collectors.toList());
-			List<Supervisor> pool = underCap.isEmpty() ? candidates : underCap;
-			pool = pool.stream()
-				.sorted(Comparator.comparingDouble((Supervisor sup) -> loadRatio.apply(sup.getName())))
-				.collect(Collectors.toList());
-			int neededBackups = Math.max(0, s.getSupervisorsRequired());
-			int added = 0;
-			for (Supervisor sup : pool) {
-				AssignmentResult.BackupAssignment ba = new AssignmentResult.BackupAssignment();
-				ba.setDate(date);
-				ba.setPeriod(p);
-				ba.setRole(RoleType.INVIGILATOR);
-				ba.setSupervisor(sup.getName());
-				ba.setBuilding(s.getBuilding());
-				ba.setSessionId(s.getId());
-				ba.setSubject(s.getSubjectName());
-				result.getBackupAssignments().add(ba);
-				Map<LocalDate, List<LocalTime[]>> dayMap = schedule.get(sup.getName());
-				dayMap.computeIfAbsent(date, d -> new ArrayList<>()).add(new LocalTime[]{ s.getFrom(), s.getTo() });
-				supervisorToTotalHours.put(sup.getName(), supervisorToTotalHours.getOrDefault(sup.getName(), 0.0) + s.getDurationHours());
-				added++;
-				if (added >= neededBackups) break;
-			}
+		if (solvers[RoleType.INVIGILATOR.ordinal()] != null) {
+			result.getBackupAssignments().addAll(solvers[RoleType.INVIGILATOR.ordinal()].backupAssignments);
 		}
-
-		// Backups for floor supervisors: exactly 1
-		for (SubjectSession s : floorSlots) {
-			LocalDate date = s.getDate();
-			PeriodOfDay p = s.getPeriod();
-			if (date == null || p == null) continue;
-			Set<String> primaries = result.getSessionAssignments().stream()
-				.filter(sa -> sa.getSession().equals(s))
-				.flatMap(sa -> sa.getAssignedSupervisors().stream())
-				.collect(java.util.stream.Collectors.toSet());
-			List<Supervisor> candidates = supervisors.stream()
-				.filter(sup -> sup.getRole() == RoleType.FLOOR_SUPERVISOR)
-				.filter(sup -> !primaries.contains(sup.getName()))
-				.filter(sup -> sup.getAvailableDays().contains(mapJavaDayToEnum(date.getDayOfWeek())))
-				.filter(sup -> !hasOverlap(schedule.get(sup.getName()), s))
-				.filter(sup -> withinConsecutiveDaysLimit(schedule.get(sup.getName()), date))
-				.collect(Collectors.toList());
-			List<Supervisor> underCap = candidates.stream().filter(x -> loadRatio.apply(x.getName()) <= FAIRNESS_CAP).collect(Collectors.toList());
-			List<Supervisor> pool = underCap.isEmpty() ? candidates : underCap;
-			pool = pool.stream()
-				.sorted(Comparator.comparingDouble((Supervisor sup) -> loadRatio.apply(sup.getName())))
-				.collect(Collectors.toList());
-			int added = 0;
-			for (Supervisor sup : pool) {
-				AssignmentResult.BackupAssignment ba = new AssignmentResult.BackupAssignment();
-				ba.setDate(date);
-				ba.setPeriod(p);
-				ba.setRole(RoleType.FLOOR_SUPERVISOR);
-				ba.setSupervisor(sup.getName());
-				ba.setBuilding(s.getBuilding());
-				ba.setSessionId(s.getId());
-				ba.setSubject(s.getSubjectName());
-				result.getBackupAssignments().add(ba);
-				Map<LocalDate, List<LocalTime[]>> dayMap = schedule.get(sup.getName());
-				dayMap.computeIfAbsent(date, d -> new ArrayList<>()).add(new LocalTime[]{ s.getFrom(), s.getTo() });
-				supervisorToTotalHours.put(sup.getName(), supervisorToTotalHours.getOrDefault(sup.getName(), 0.0) + s.getDurationHours());
-				added++;
-				if (added >= 1) break;
-			}
+		if (solvers[RoleType.FLOOR_SUPERVISOR.ordinal()] != null) {
+			result.getBackupAssignments().addAll(solvers[RoleType.FLOOR_SUPERVISOR.ordinal()].backupAssignments);
 		}
-
-		// Totals (after backups so backup hours are counted and split)
-		for (Supervisor sup : supervisors) {
+		// Totals (after backups so backup hours are counted and split), from counters kept while booking
+		meter.enter(SolvePhase.TOTALS, -1, p.supervisorCount);
+		control.phase(SolvePhase.TOTALS, -1, p.supervisorCount);
+		DayOfWeekEnum[] days = DayOfWeekEnum.values();
+		for (int sup = 0; sup < p.supervisorCount; sup++) {
 			AssignmentResult.SupervisorTotals totals = new AssignmentResult.SupervisorTotals();
-			totals.setSupervisor(sup.getName());
-			double primaryHours = 0.0;
-			double backupHours = 0.0;
-			for (AssignmentResult.SessionAssignment sa : result.getSessionAssignments()) {
-				if (sa.getAssignedSupervisors().contains(sup.getName())) {
-					primaryHours += sa.getSession().getDurationHours();
-				}
-			}
-			for (AssignmentResult.BackupAssignment ba : result.getBackupAssignments()) {
-				if (sup.getName().equals(ba.getSupervisor())) {
-					SubjectSession ss = sessions.stream().filter(x -> x.getId().equals(ba.getSessionId())).findFirst().orElse(null);
-					if (ss == null) ss = floorSlots.stream().filter(x -> x.getId().equals(ba.getSessionId())).findFirst().orElse(null);
-					if (ss != null) backupHours += ss.getDurationHours();
-				}
-			}
+			totals.setSupervisor(p.supervisorNames[sup]);
+			RoleSolver solver = solvers[p.supervisorRole[sup]];
+			double primaryHours = ledger.primaryMinutes(sup) / 60.0;
+			double backupHours = ledger.backupMinutes(sup) / 60.0;
 			double totalH = primaryHours + backupHours;
 			totals.setPrimaryHours(primaryHours);
 			totals.setBackupHours(backupHours);
 			totals.setTotalHours(totalH);
-			double expected = supervisorExpectedHours.getOrDefault(sup.getName(), 0.0);
+			double expected = p.expectedHours[sup];
 			totals.setExpectedHours(expected);
 			totals.setDeviationFromTarget(totalH - expected);
-			totals.setRole(sup.getRole());
-			totals.setLoadPercentage(sup.getLoadPercentage() == null ? 100.0 : sup.getLoadPercentage());
+			totals.setRole(p.supervisors[sup].getRole());
+			totals.setLoadPercentage(p.supervisors[sup].getLoadPercentage() == null ? 100.0 : p.supervisors[sup].getLoadPercentage());
 			Map<DayOfWeekEnum, Double> dayHours = new EnumMap<>(DayOfWeekEnum.class);
-			Map<LocalDate, List<LocalTime[]>> dayMap = schedule.get(sup.getName());
-			int sessionsCount = 0;
-			if (dayMap != null) {
-				for (Map.Entry<LocalDate, List<LocalTime[]>> e : dayMap.entrySet()) {
-					double h = e.getValue().stream()
-						.mapToDouble(arr -> java.time.Duration.between(arr[0], arr[1]).toMinutes() / 60.0)
-						.sum();
-					DayOfWeekEnum dow = mapJavaDayToEnum(e.getKey().getDayOfWeek());
-					dayHours.put(dow, dayHours.getOrDefault(dow, 0.0) + h);
-					sessionsCount += e.getValue().size();
+			for (int d = 0; d < days.length; d++) {
+				if (solver != null && solver.state().bookingsOnDay(sup, d) > 0) {
+					dayHours.put(days[d], solver.state().minutesOnDay(sup, d) / 60.0);
 				}
 			}
-			totals.setSessionsCount(sessionsCount);
+			totals.setSessionsCount(solver == null ? 0 : solver.state().bookings(sup));
 			totals.setPerDayHours(dayHours);
 			totals.setMaxHoursConfigured(null);
 			result.getSupervisorTotals().add(totals);
 		}
-
-		return result;
+		meter.leave();
 	}
 
-	private boolean isEligible(SubjectSession s, Supervisor sup, Config config) {
-		if (sup.getRole() != s.getRequiredRole()) return false;
-		
-		// Check if supervisor is excluded from this subject
-		if (sup.getExcludedSubjects().contains(s.getSubjectName())) {
-			return false;
-		}
-		
-		return sup.getAvailableDays().contains(s.getDay());
+	// One complete solve; ranked by sessions not fully assigned, then spread of hours off target
+	private static final class Run {
+		Long seed;
+		AssignmentLedger ledger;
+		RoleSolver[] solvers;
+		int notAssigned;
+		double spread;
 	}
 
-	private boolean hasOverlap(Map<LocalDate, List<LocalTime[]>> dayMap, SubjectSession s) {
-		if (dayMap == null) return false;
-		LocalDate dateKey = s.getDate() != null ? s.getDate() : LocalDate.now();
-		List<LocalTime[]> list = dayMap.get(dateKey);
-		if (list == null) return false;
-		for (LocalTime[] interval : list) {
-			if (TimeUtil.overlaps(interval[0], interval[1], s.getFrom(), s.getTo())) return true;
+	private Run solve(CompiledProblem p, int[][] roleOrder, Config settings, Long seed, SolveControl control) {
+		Run run = new Run();
+		run.seed = seed;
+		run.ledger = new AssignmentLedger(p);
+		int[] nameRank = seed == null ? p.supervisorNameRank : shuffledRanks(p.supervisorCount, seed);
+		run.solvers = createSolvers(p, roleOrder, run.ledger, settings, nameRank, control);
+		List<ForkJoinTask<?>> tasks = new ArrayList<>();
+		for (int r = 0; r < run.solvers.length; r++) {
+			RoleSolver solver = run.solvers[r];
+			if (solver == null) continue;
+			int[] roleSessions = roleOrder[r];
+			tasks.add(ForkJoinTask.adapt(() -> solver.solve(roleSessions)));
 		}
-		return false;
-	}
+		ForkJoinTask.invokeAll(tasks);
 
-	private boolean withinConsecutiveDaysLimit(Map<LocalDate, List<LocalTime[]>> dayMap, SubjectSession slot) {
-		if (dayMap == null) return true;
-		LocalDate d = slot.getDate();
-		if (d == null) return true;
-		boolean prev1 = dayMap.containsKey(d.minusDays(1)) && !dayMap.get(d.minusDays(1)).isEmpty();
-		boolean prev2 = dayMap.containsKey(d.minusDays(2)) && !dayMap.get(d.minusDays(2)).isEmpty();
-		if (prev1 && prev2) return false;
-		boolean next1 = dayMap.containsKey(d.plusDays(1)) && !dayMap.get(d.plusDays(1)).isEmpty();
-		if (prev1 && next1) return false;
-		return true;
+		for (int s = 0; s < p.sessionCount; s++) {
+			if (!"Assigned".equals(run.solvers[p.sessionRole[s]].sessionAssignments[s].getStatus())) run.notAssigned++;
+		}
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for (int sup = 0; sup < p.supervisorCount; sup++) {
+			double deviation = (run.ledger.primaryMinutes(sup) + run.ledger.backupMinutes(sup)) / 60.0 - p.expectedHours[sup];
+			min = Math.min(min, deviation);
+			max = Math.max(max, deviation);
+		}
+		run.spread = p.supervisorCount == 0 ? 0.0 : max - min;
+		return run;
 	}
 
-	private boolean withinConsecutiveDaysLimit(Map<LocalDate, List<LocalTime[]>> dayMap, LocalDate d) {
-		if (dayMap == null) return true;
-		boolean prev1 = dayMap.containsKey(d.minusDays(1)) && !dayMap.get(d.minusDays(1)).isEmpty();
-		boolean prev2 = dayMap.containsKey(d.minusDays(2)) && !dayMap.get(d.minusDays(2)).isEmpty();
-		if (prev1 && prev2) return false;
-		boolean next1 = dayMap.containsKey(d.plusDays(1)) && !dayMap.get(d.plusDays(1)).isEmpty();
-		if (prev1 && next1) return false;
-		return true;
+	private static RoleSolver[] createSolvers(CompiledProblem p, int[][] roleOrder, AssignmentLedger ledger, Config settings, int[] nameRank,
+			SolveControl control) {
+		RoleSolver[] solvers = new RoleSolver[CompiledProblem.ROLE_SLOTS];
+		for (int r = 0; r < solvers.length; r++) {
+			// Invigilators also cover backups for every input session
+			if (roleOrder[r].length == 0 && !(r == RoleType.INVIGILATOR.ordinal() && p.inputSessionCount > 0)) continue;
+			solvers[r] = new RoleSolver(p, r, ledger, settings, nameRank, control);
+		}
+		return solvers;
 	}
 
-	private int schedulePreferenceScore(Map<LocalDate, List<LocalTime[]>> dayMap, SubjectSession slot, Config config) {
-		if (dayMap == null) return 1;
-		LocalDate dateKey = slot.getDate() != null ? slot.getDate() : LocalDate.now();
-		List<LocalTime[]> list = dayMap.get(dateKey);
-		if (list == null || list.isEmpty()) return 1;
-		LocalTime start = slot.getFrom();
-		LocalTime end = slot.getTo();
-		boolean adjacent = list.stream().anyMatch(arr -> arr[1].equals(start) || arr[0].equals(end));
-		if (config != null) {
-			switch (config.getSchedulingMode()) {
-				case CONSECUTIVE: return adjacent ? 0 : 1;
-				case BREAK: return adjacent ? 2 : 0;
-				case MIXED: default: return adjacent ? 0 : 1;
-			}
+	// Random tie-break order for a seeded run
+	private static int[] shuffledRanks(int n, long seed) {
+		int[] rank = new int[n];
+		for (int i = 0; i < n; i++) rank[i] = i;
+		Random random = new Random(seed);
+		for (int i = n - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int tmp = rank[i];
+			rank[i] = rank[j];
+			rank[j] = tmp;
 		}
-		return adjacent ? 0 : 1;
+		return rank;
 	}
 
 	private DayOfWeekEnum mapJavaDayToEnum(java.time.DayOfWeek dow) {
@@ -0,0 +1,155 @@
+package com.supervisor.assignment.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Primary and backup assignments of one solve, indexed both by session and by supervisor
+ * so every phase and the result building can look them up without scanning.
+ */
+final class AssignmentLedger {
+	private final CompiledProblem problem;
+	private final int[][] sessionPrimaries;
+	private final int[] sessionPrimaryCount;
+	private final int[][] sessionBackups;
+	private final int[] sessionBackupCount;
+	private final int[][] supervisorPrimaries;
+	private final int[] supervisorPrimaryCount;
+	private final int[][] supervisorBackups;
+	private final int[] supervisorBackupCount;
+	private final int[] primaryMinutes;
+	private final int[] backupMinutes;
+
+	AssignmentLedger(CompiledProblem problem) {
+		this.problem = problem;
+		int sessions = problem.sessionCount;
+		int n = problem.supervisorCount;
+		this.sessionPrimaries = new int[sessions][];
+		for (int s = 0; s < sessions; s++) sessionPrimaries[s] = new int[Math.max(1, problem.sessionRequired[s])];
+		this.sessionPrimaryCount = new int[sessions];
+		this.sessionBackups = new int[sessions][];
+		this.sessionBackupCount = new int[sessions];
+		this.supervisorPrimaries = new int[n][];
+		this.supervisorPrimaryCount = new int[n];
+		this.supervisorBackups = new int[n][];
+		this.supervisorBackupCount = new int[n];
+		this.primaryMinutes = new int[n];
+		this.backupMinutes = new int[n];
+	}
+
+	void addPrimary(int session, int sup) {
+		sessionPrimaries[session] = append(sessionPrimaries[session], sessionPrimaryCount[session]++, sup);
+		supervisorPrimaries[sup] = append(supervisorPrimaries[sup], supervisorPrimaryCount[sup]++, session);
+		primaryMinutes[sup] += problem.sessionMinutes[session];
+	}
+
+	void addBackup(int session, int sup) {
+		sessionBackups[session] = append(sessionBackups[session], sessionBackupCount[session]++, sup);
+		supervisorBackups[sup] = append(supervisorBackups[sup], supervisorBackupCount[sup]++, session);
+		backupMinutes[sup] += problem.sessionMinutes[session];
+	}
+
+	/** Hands a primary slot to another supervisor, keeping its position within the session. */
+	void replacePrimary(int session, int from, int to) {
+		replace(sessionPrimaries[session], sessionPrimaryCount[session], from, to);
+		supervisorPrimaryCount[from] = remove(supervisorPrimaries[from], supervisorPrimaryCount[from], session);
+		supervisorPrimaries[to] = append(supervisorPrimaries[to], supervisorPrimaryCount[to]++, session);
+		primaryMinutes[from] -= problem.sessionMinutes[session];
+		primaryMinutes[to] += problem.sessionMinutes[session];
+	}
+
+	void replaceBackup(int session, int from, int to) {
+		replace(sessionBackups[session], sessionBackupCount[session], from, to);
+		supervisorBackupCount[from] = remove(supervisorBackups[from], supervisorBackupCount[from], session);
+		supervisorBackups[to] = append(supervisorBackups[to], supervisorBackupCount[to]++, session);
+		backupMinutes[from] -= problem.sessionMinutes[session];
+		backupMinutes[to] += problem.sessionMinutes[session];
+	}
+
+	void removeBackup(int session, int sup) {
+		sessionBackupCount[session] = remove(sessionBackups[session], sessionBackupCount[session], sup);
+		supervisorBackupCount[sup] = remove(supervisorBackups[sup], supervisorBackupCount[sup], session);
+		backupMinutes[sup] -= problem.sessionMinutes[session];
+	}
+
+	int primaryCount(int session) {
+		return sessionPrimaryCount[session];
+	}
+
+	int primary(int session, int i) {
+		return sessionPrimaries[session][i];
+	}
+
+	int backupCount(int session) {
+		return sessionBackupCount[session];
+	}
+
+	int backup(int session, int i) {
+		return sessionBackups[session][i];
+	}
+
+	/** Number of sessions the supervisor holds as primary, in booking order. */
+	int primarySessionCount(int sup) {
+		return supervisorPrimaryCount[sup];
+	}
+
+	int primarySession(int sup, int i) {
+		return supervisorPrimaries[sup][i];
+	}
+
+	int backupSessionCount(int sup) {
+		return supervisorBackupCount[sup];
+	}
+
+	int backupSession(int sup, int i) {
+		return supervisorBackups[sup][i];
+	}
+
+	int primaryMinutes(int sup) {
+		return primaryMinutes[sup];
+	}
+
+	int backupMinutes(int sup) {
+		return backupMinutes[sup];
+	}
+
+	/** Clears the session's primaries from a supervisor bitset. */
+	void excludePrimaries(int session, long[] candidates) {
+		for (int i = 0; i < sessionPrimaryCount[session]; i++) BitSets.clear(candidates, sessionPrimaries[session][i]);
+	}
+
+	List<String> primaryNames(int session) {
+		List<String> names = new ArrayList<>(sessionPrimaryCount[session]);
+		for (int i = 0; i < sessionPrimaryCount[session]; i++) names.add(problem.supervisorNames[sessionPrimaries[session][i]]);
+		return names;
+	}
+
+	private static void replace(int[] values, int count, int from, int to) {
+		for (int i = 0; i < count; i++) {
+			if (values[i] == from) {
+				values[i] = to;
+				return;
+			}
+		}
+		throw new IllegalStateException("Assignment not found");
+	}
+
+	// Removes one occurrence keeping the order of the rest; returns the new count
+	private static int remove(int[] values, int count, int value) {
+		for (int i = 0; i < count; i++) {
+			if (values[i] == value) {
+				System.arraycopy(values, i + 1, values, i, count - i - 1);
+				return count - 1;
+			}
+		}
+		throw new IllegalStateException("Assignment not found");
+	}
+
+	private static int[] append(int[] values, int index, int value) {
+		if (values == null) values = new int[4];
+		else if (index == values.length) values = Arrays.copyOf(values, index * 2);
+		values[index] = value;
+		return values;
+	}
+}
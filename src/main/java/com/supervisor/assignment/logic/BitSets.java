@@ -0,0 +1,42 @@
+package com.supervisor.assignment.logic;
+
+/**
+ * Helpers for fixed-size bitsets over supervisor indices stored as {@code long[]} words.
+ */
+final class BitSets {
+	private BitSets() {}
+
+	static long[] create(int bits) {
+		return new long[(bits + 63) >>> 6];
+	}
+
+	static void set(long[] words, int bit) {
+		words[bit >>> 6] |= 1L << bit;
+	}
+
+	static void clear(long[] words, int bit) {
+		words[bit >>> 6] &= ~(1L << bit);
+	}
+
+	static boolean get(long[] words, int bit) {
+		return (words[bit >>> 6] & (1L << bit)) != 0;
+	}
+
+	static int cardinality(long[] words) {
+		int count = 0;
+		for (long word : words) count += Long.bitCount(word);
+		return count;
+	}
+
+	/** Index of the first set bit at or after {@code from}, or -1. */
+	static int nextSetBit(long[] words, int from) {
+		int w = from >>> 6;
+		if (w >= words.length) return -1;
+		long word = words[w] & (-1L << from);
+		while (true) {
+			if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+			if (++w == words.length) return -1;
+			word = words[w];
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package com.supervisor.assignment.logic;
+
+/**
+ * Cooperative cancellation of an {@link AssignmentEngine} call: the engine checks it between
+ * slots and returns the best partial result found so far.
+ */
+public final class CancellationToken {
+	private volatile boolean cancelled;
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+}
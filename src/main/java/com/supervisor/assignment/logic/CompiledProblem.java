@@ -0,0 +1,214 @@
+package com.supervisor.assignment.logic;
+
+import com.supervisor.assignment.model.*;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Dense view of one assignment problem. Supervisors, sessions, subjects and dates
+ * get int ordinals and times become minutes since midnight, so the solver works on primitive
+ * arrays instead of name-keyed maps.
+ */
+final class CompiledProblem {
+	// RoleType ordinals plus one extra slot for a null role
+	static final int ROLE_SLOTS = RoleType.values().length + 1;
+	static final int NONE = -1;
+
+	final int supervisorCount;
+	final Supervisor[] supervisors;
+	final String[] supervisorNames;
+	final int[] supervisorNameRank;    // position of the name in sorted order, for tie-breaking
+	final int[] supervisorRole;
+	final double[] expectedHours;
+	final long[][] roleMask;           // [role] -> supervisors with that role
+	final int[][] roleMembers;         // [role] -> supervisors with that role, ascending
+	final int[] memberIndex;           // position of each supervisor in its role's members
+	final long[][] dayMask;            // [day] -> supervisors available that day
+	final long[][] excludedMask;       // [subject] -> supervisors excluded from that subject
+	final long[] emptyMask;
+
+	final int sessionCount;
+	final int inputSessionCount;       // sessions [0, inputSessionCount) came from the caller
+	final int floorSlotEnd;            // floor slots are [inputSessionCount, floorSlotEnd), maintenance after
+	final SubjectSession[] sessions;
+	final int[] sessionRole;
+	final int[] sessionDay;            // DayOfWeekEnum ordinal, NONE when missing
+	final int[] sessionDate;           // date ordinal; sessions without a date are keyed to today
+	final boolean[] sessionHasDate;
+	final int[] sessionStart;
+	final int[] sessionEnd;
+	final int[] sessionMinutes;
+	final int[] sessionRequired;       // max(1, supervisorsRequired)
+	final int[] sessionSubject;
+	final int[] sessionBlock;          // distinct (date, start, end) time block
+
+	final int blockCount;
+	final int[][] blockConflicts;      // blocks on the same date that overlap each block
+	final int[][] blockAdjacent;       // blocks on the same date ending at its start or starting at its end
+
+	final String[] subjects;
+	final LocalDate[] dates;
+	final int[] dateDay;
+	final int[] datePrev1;
+	final int[] datePrev2;
+	final int[] dateNext1;
+
+	private CompiledProblem(List<SubjectSession> allSessions, int inputSessionCount, int floorSlotCount,
+			List<Supervisor> supervisorList, double[] basePerUnit) {
+		LocalDate today = LocalDate.now();
+		this.inputSessionCount = inputSessionCount;
+		this.floorSlotEnd = inputSessionCount + floorSlotCount;
+
+		// Dates: sorted ordinals with precomputed neighbours for the consecutive-days rule
+		TreeSet<LocalDate> dateSet = new TreeSet<>();
+		for (SubjectSession s : allSessions) dateSet.add(s.getDate() != null ? s.getDate() : today);
+		dates = dateSet.toArray(new LocalDate[0]);
+		Map<LocalDate, Integer> dateIndex = new HashMap<>();
+		for (int d = 0; d < dates.length; d++) dateIndex.put(dates[d], d);
+		dateDay = new int[dates.length];
+		datePrev1 = new int[dates.length];
+		datePrev2 = new int[dates.length];
+		dateNext1 = new int[dates.length];
+		for (int d = 0; d < dates.length; d++) {
+			dateDay[d] = dayOrdinal(dates[d]);
+			datePrev1[d] = dateIndex.getOrDefault(dates[d].minusDays(1), NONE);
+			datePrev2[d] = dateIndex.getOrDefault(dates[d].minusDays(2), NONE);
+			dateNext1[d] = dateIndex.getOrDefault(dates[d].plusDays(1), NONE);
+		}
+
+		// Sessions
+		sessionCount = allSessions.size();
+		sessions = allSessions.toArray(new SubjectSession[0]);
+		sessionRole = new int[sessionCount];
+		sessionDay = new int[sessionCount];
+		sessionDate = new int[sessionCount];
+		sessionHasDate = new boolean[sessionCount];
+		sessionStart = new int[sessionCount];
+		sessionEnd = new int[sessionCount];
+		sessionMinutes = new int[sessionCount];
+		sessionRequired = new int[sessionCount];
+		sessionSubject = new int[sessionCount];
+		Map<String, Integer> subjectIndex = new HashMap<>();
+		for (int i = 0; i < sessionCount; i++) {
+			SubjectSession s = sessions[i];
+			sessionRole[i] = roleOrdinal(s.getRequiredRole());
+			sessionDay[i] = s.getDay() == null ? NONE : s.getDay().ordinal();
+			sessionHasDate[i] = s.getDate() != null;
+			sessionDate[i] = dateIndex.get(s.getDate() != null ? s.getDate() : today);
+			sessionStart[i] = TimeUtil.minutesSinceMidnight(s.getFrom());
+			sessionEnd[i] = TimeUtil.minutesSinceMidnight(s.getTo());
+			sessionMinutes[i] = sessionEnd[i] - sessionStart[i];
+			sessionRequired[i] = Math.max(1, s.getSupervisorsRequired());
+			sessionSubject[i] = subjectIndex.computeIfAbsent(s.getSubjectName(), k -> subjectIndex.size());
+		}
+
+		sessionBlock = new int[sessionCount];
+		Map<Long, Integer> blockIndex = new HashMap<>();
+		List<List<Integer>> blocksByDate = new ArrayList<>();
+		for (int d = 0; d < dates.length; d++) blocksByDate.add(new ArrayList<>());
+		List<int[]> blockTimes = new ArrayList<>();
+		for (int i = 0; i < sessionCount; i++) {
+			long key = ((long) sessionDate[i] << 32) | ((long) (sessionStart[i] & 0xFFFF) << 16) | (sessionEnd[i] & 0xFFFF);
+			final int session = i;
+			sessionBlock[i] = blockIndex.computeIfAbsent(key, k -> {
+				int id = blockTimes.size();
+				blockTimes.add(new int[]{ sessionStart[session], sessionEnd[session] });
+				blocksByDate.get(sessionDate[session]).add(id);
+				return id;
+			});
+		}
+		blockCount = blockTimes.size();
+		blockConflicts = new int[blockCount][];
+		blockAdjacent = new int[blockCount][];
+		for (List<Integer> sameDate : blocksByDate) {
+			for (int a : sameDate) {
+				int[] conflicts = new int[sameDate.size()];
+				int[] adjacent = new int[sameDate.size()];
+				int n = 0, m = 0;
+				int[] at = blockTimes.get(a);
+				for (int b : sameDate) {
+					int[] bt = blockTimes.get(b);
+					if (TimeUtil.overlaps(at[0], at[1], bt[0], bt[1])) conflicts[n++] = b;
+					else if (bt[1] == at[0] || bt[0] == at[1]) adjacent[m++] = b;
+				}
+				blockConflicts[a] = Arrays.copyOf(conflicts, n);
+				blockAdjacent[a] = Arrays.copyOf(adjacent, m);
+			}
+		}
+		subjects = new String[subjectIndex.size()];
+		subjectIndex.forEach((name, idx) -> subjects[idx] = name);
+
+		// Supervisors
+		supervisorCount = supervisorList.size();
+		supervisors = supervisorList.toArray(new Supervisor[0]);
+		supervisorNames = new String[supervisorCount];
+		supervisorNameRank = new int[supervisorCount];
+		supervisorRole = new int[supervisorCount];
+		expectedHours = new double[supervisorCount];
+		roleMask = new long[ROLE_SLOTS][];
+		for (int r = 0; r < ROLE_SLOTS; r++) roleMask[r] = BitSets.create(supervisorCount);
+		roleMembers = new int[ROLE_SLOTS][];
+		memberIndex = new int[supervisorCount];
+		dayMask = new long[DayOfWeekEnum.values().length][];
+		for (int d = 0; d < dayMask.length; d++) dayMask[d] = BitSets.create(supervisorCount);
+		excludedMask = new long[subjects.length][];
+		for (int sub = 0; sub < subjects.length; sub++) excludedMask[sub] = BitSets.create(supervisorCount);
+		emptyMask = BitSets.create(supervisorCount);
+		Integer[] byName = new Integer[supervisorCount];
+		for (int i = 0; i < supervisorCount; i++) {
+			Supervisor sup = supervisors[i];
+			supervisorNames[i] = sup.getName();
+			supervisorRole[i] = roleOrdinal(sup.getRole());
+			int days = 0;
+			for (DayOfWeekEnum d : sup.getAvailableDays()) if (d != null) days |= 1 << d.ordinal();
+			BitSets.set(roleMask[supervisorRole[i]], i);
+			for (int d = 0; d < dayMask.length; d++) if ((days & (1 << d)) != 0) BitSets.set(dayMask[d], i);
+			int[] excluded = sup.getExcludedSubjects().stream()
+				.filter(subjectIndex::containsKey)
+				.mapToInt(subjectIndex::get)
+				.toArray();
+			for (int sub : excluded) BitSets.set(excludedMask[sub], i);
+			double units = (sup.getLoadPercentage() == null ? 1.0 : sup.getLoadPercentage() / 100.0);
+			expectedHours[i] = (sup.getRole() == RoleType.FLOOR_SUPERVISOR || sup.getRole() == RoleType.MAINTENANCE
+				? basePerUnit[sup.getRole().ordinal()]
+				: basePerUnit[RoleType.INVIGILATOR.ordinal()]) * units;
+			byName[i] = i;
+		}
+		Arrays.sort(byName, (a, b) -> supervisorNames[a].compareTo(supervisorNames[b]));
+		int[] roleSize = new int[ROLE_SLOTS];
+		for (int i = 0; i < supervisorCount; i++) memberIndex[i] = roleSize[supervisorRole[i]]++;
+		for (int r = 0; r < ROLE_SLOTS; r++) roleMembers[r] = new int[roleSize[r]];
+		for (int i = 0; i < supervisorCount; i++) roleMembers[supervisorRole[i]][memberIndex[i]] = i;
+		for (int rank = 0; rank < supervisorCount; rank++) supervisorNameRank[byName[rank]] = rank;
+	}
+
+	/**
+	 * @param allSessions input sessions, then floor slots, then maintenance slots
+	 * @param basePerUnit expected hours per 100% load unit, indexed by RoleType ordinal
+	 */
+	static CompiledProblem compile(List<SubjectSession> allSessions, int inputSessionCount, int floorSlotCount,
+			List<Supervisor> supervisors, double[] basePerUnit) {
+		return new CompiledProblem(allSessions, inputSessionCount, floorSlotCount, supervisors, basePerUnit);
+	}
+
+	long[] availableMask(int day) {
+		return day == NONE ? emptyMask : dayMask[day];
+	}
+
+	static int roleOrdinal(RoleType role) {
+		return role == null ? ROLE_SLOTS - 1 : role.ordinal();
+	}
+
+	private static int dayOrdinal(LocalDate date) {
+		switch (date.getDayOfWeek()) {
+			case SATURDAY: return DayOfWeekEnum.SATURDAY.ordinal();
+			case SUNDAY: return DayOfWeekEnum.SUNDAY.ordinal();
+			case MONDAY: return DayOfWeekEnum.MONDAY.ordinal();
+			case TUESDAY: return DayOfWeekEnum.TUESDAY.ordinal();
+			case WEDNESDAY: return DayOfWeekEnum.WEDNESDAY.ordinal();
+			case THURSDAY: return DayOfWeekEnum.THURSDAY.ordinal();
+			case FRIDAY: return DayOfWeekEnum.FRIDAY.ordinal();
+			default: return NONE;
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.supervisor.assignment.logic;
+
+/**
+ * Indexed binary min-heap over the supervisors of one role, ordered by fairness tier
+ * (at or under {@link SolverState#FAIRNESS_CAP} first), load ratio, then name. Keys are
+ * updated in O(log n) after each booking, and {@link #scan()} walks supervisors in key
+ * order lazily so the best feasible candidate is found without sorting the pool. When few
+ * supervisors are feasible, callers compare their keys directly instead.
+ */
+final class LoadHeap {
+	private final int[] nameRank;
+	private final int[] memberIndex;
+	private final double[] ratio;   // by member index
+	private final int[] position;   // by member index
+	private final int[] heap;
+	private int size;
+	private final int[] frontier;   // heap positions still to visit during a scan
+	private int frontierSize;
+
+	/** Holds the members of {@code role}; breaks load ties by {@code nameRank}, a permutation of supervisor indices. */
+	LoadHeap(CompiledProblem problem, int role, int[] nameRank) {
+		this.nameRank = nameRank;
+		this.memberIndex = problem.memberIndex;
+		this.heap = problem.roleMembers[role].clone();
+		this.size = heap.length;
+		this.ratio = new double[size];
+		this.position = new int[size];
+		for (int i = 0; i < size; i++) position[i] = i;
+		this.frontier = new int[size + 1];
+		for (int i = size / 2 - 1; i >= 0; i--) siftDown(i);
+	}
+
+	void update(int sup, double newRatio) {
+		int m = memberIndex[sup];
+		double old = ratio[m];
+		ratio[m] = newRatio;
+		if (newRatio < old) siftUp(position[m]);
+		else siftDown(position[m]);
+	}
+
+	int size() {
+		return size;
+	}
+
+	/** Compares the keys of two members by tier, then load ratio; 0 when only the name differs. */
+	int compareLoad(int a, int b) {
+		int cmp = Integer.compare(tier(a), tier(b));
+		return cmp != 0 ? cmp : Double.compare(ratio[memberIndex[a]], ratio[memberIndex[b]]);
+	}
+
+	/** True when both supervisors share tier and load ratio, i.e. only the tie-breakers differ. */
+	boolean sameLoad(int a, int b) {
+		return compareLoad(a, b) == 0;
+	}
+
+	/** True when {@code a} comes before {@code b} in heap order. */
+	boolean before(int a, int b) {
+		return less(a, b);
+	}
+
+	/** Starts an in-order walk; call {@link #next()} until it returns -1. */
+	void scan() {
+		frontierSize = 0;
+		if (size > 0) frontier[frontierSize++] = 0;
+	}
+
+	int next() {
+		if (frontierSize == 0) return -1;
+		int top = frontier[0];
+		frontier[0] = frontier[--frontierSize];
+		frontierSiftDown(0);
+		int left = 2 * top + 1;
+		if (left < size) frontierPush(left);
+		if (left + 1 < size) frontierPush(left + 1);
+		return heap[top];
+	}
+
+	private int tier(int sup) {
+		return ratio[memberIndex[sup]] <= SolverState.FAIRNESS_CAP ? 0 : 1;
+	}
+
+	private boolean less(int a, int b) {
+		int cmp = compareLoad(a, b);
+		if (cmp != 0) return cmp < 0;
+		return nameRank[a] < nameRank[b];
+	}
+
+	private void siftUp(int i) {
+		int sup = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!less(sup, heap[parent])) break;
+			heap[i] = heap[parent];
+			position[memberIndex[heap[i]]] = i;
+			i = parent;
+		}
+		heap[i] = sup;
+		position[memberIndex[sup]] = i;
+	}
+
+	private void siftDown(int i) {
+		int sup = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) break;
+			if (child + 1 < size && less(heap[child + 1], heap[child])) child++;
+			if (!less(heap[child], sup)) break;
+			heap[i] = heap[child];
+			position[memberIndex[heap[i]]] = i;
+			i = child;
+		}
+		heap[i] = sup;
+		position[memberIndex[sup]] = i;
+	}
+
+	private void frontierPush(int pos) {
+		int i = frontierSize++;
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!less(heap[pos], heap[frontier[parent]])) break;
+			frontier[i] = frontier[parent];
+			i = parent;
+		}
+		frontier[i] = pos;
+	}
+
+	private void frontierSiftDown(int i) {
+		if (frontierSize == 0) return;
+		int pos = frontier[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= frontierSize) break;
+			if (child + 1 < frontierSize && less(heap[frontier[child + 1]], heap[frontier[child]])) child++;
+			if (!less(heap[frontier[child]], heap[pos])) break;
+			frontier[i] = frontier[child];
+			i = child;
+		}
+		frontier[i] = pos;
+	}
+}
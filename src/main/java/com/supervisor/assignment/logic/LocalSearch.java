@@ -0,0 +1,253 @@
+package com.supervisor.assignment.logic;
+
+import com.supervisor.assignment.model.AssignmentResult;
+import java.util.Arrays;
+
+/**
+ * Time-budgeted improvement phase for one role, run after the greedy and the backups. Coverage
+ * comes first: a fill gives an unfilled primary slot to a supervisor whose only clashing booking
+ * can be handed to someone else. Then the sum of squared deviations from expected hours is
+ * lowered by moving a primary or backup booking to a less loaded supervisor, or by swapping two
+ * bookings of different length. A move only changes the deviation of its two supervisors, so
+ * its effect on the objective is evaluated in O(1).
+ */
+final class LocalSearch {
+	private final CompiledProblem p;
+	private final int role;
+	private final SolverState st;
+	private final AssignmentLedger ledger;
+	private final int[] sessions;   // primary sessions of this role
+	private final int[] members;    // supervisors of this role
+	private final long budgetNanos;
+	private final SolveControl control;
+	private final long[] candidates;
+	private long deadline;
+	private int moves;
+	private int clashSession;
+	private boolean clashBackup;
+
+	LocalSearch(CompiledProblem p, int role, SolverState st, AssignmentLedger ledger, int[] sessions, long budgetMillis, SolveControl control) {
+		this.p = p;
+		this.role = role;
+		this.st = st;
+		this.ledger = ledger;
+		this.sessions = sessions;
+		this.members = p.roleMembers[role];
+		this.budgetNanos = budgetMillis * 1_000_000L;
+		this.control = control;
+		this.candidates = BitSets.create(p.supervisorCount);
+	}
+
+	AssignmentResult.ImprovementSummary run() {
+		long start = System.nanoTime();
+		deadline = start + budgetNanos;
+		AssignmentResult.ImprovementSummary summary = new AssignmentResult.ImprovementSummary();
+		summary.setUnfilledSlotsBefore(unfilledSlots());
+		summary.setSquaredDeviationBefore(squaredDeviation());
+		boolean improved = true;
+		while (improved && !expired()) {
+			improved = fillPass();
+			improved |= movePass();
+			improved |= swapPass();
+		}
+		summary.setUnfilledSlotsAfter(unfilledSlots());
+		summary.setSquaredDeviationAfter(squaredDeviation());
+		summary.setMovesApplied(moves);
+		summary.setElapsedMillis((System.nanoTime() - start) / 1_000_000L);
+		return summary;
+	}
+
+	private boolean fillPass() {
+		boolean improved = false;
+		for (int s : sessions) {
+			while (ledger.primaryCount(s) < p.sessionRequired[s] && !expired()) {
+				if (!fill(s)) break;
+				improved = true;
+			}
+		}
+		return improved;
+	}
+
+	// Fills use the backfill rules: role, no overlap and the consecutive-days limit. A displaced
+	// booking moves only to someone who could have been picked for it in the first place
+	private boolean fill(int s) {
+		st.freeCandidates(s, role, null, null, candidates);
+		int chosen = leastDeviation(Double.POSITIVE_INFINITY);
+		if (chosen != CompiledProblem.NONE) {
+			ledger.addPrimary(s, chosen);
+			st.book(chosen, s);
+			moves++;
+			return true;
+		}
+		for (int b : members) {
+			if (expired()) return false;
+			if (!singleClash(b, s)) continue;
+			int t = clashSession;
+			boolean backup = clashBackup;
+			st.unbook(b, t);
+			if (st.isFree(b, s) && st.withinConsecutiveDaysLimit(b, s)) {
+				eligibleCandidates(t, backup);
+				BitSets.clear(candidates, b);
+				int c = leastDeviation(Double.POSITIVE_INFINITY);
+				if (c != CompiledProblem.NONE) {
+					st.book(c, t);
+					replace(t, b, c, backup);
+					ledger.addPrimary(s, b);
+					st.book(b, s);
+					moves++;
+					return true;
+				}
+			}
+			st.book(b, t);
+		}
+		return false;
+	}
+
+	// True when exactly one booking of sup overlaps s (and sup is not on s itself)
+	private boolean singleClash(int sup, int s) {
+		int found = 0;
+		for (int i = 0; i < ledger.primarySessionCount(sup) + ledger.backupSessionCount(sup); i++) {
+			boolean backup = i >= ledger.primarySessionCount(sup);
+			int t = backup ? ledger.backupSession(sup, i - ledger.primarySessionCount(sup)) : ledger.primarySession(sup, i);
+			if (t == s) return false;
+			if (p.sessionDate[t] != p.sessionDate[s]) continue;
+			if (!TimeUtil.overlaps(p.sessionStart[t], p.sessionEnd[t], p.sessionStart[s], p.sessionEnd[s])) continue;
+			if (++found > 1) return false;
+			clashSession = t;
+			clashBackup = backup;
+		}
+		return found == 1;
+	}
+
+	private boolean movePass() {
+		boolean improved = false;
+		for (int a : members) {
+			// Walk backwards so a booking handed away does not shift the ones still to visit
+			for (int i = ledger.primarySessionCount(a) - 1; i >= 0; i--) {
+				if (expired()) return improved;
+				improved |= move(ledger.primarySession(a, i), a, false);
+			}
+			for (int i = ledger.backupSessionCount(a) - 1; i >= 0; i--) {
+				if (expired()) return improved;
+				improved |= move(ledger.backupSession(a, i), a, true);
+			}
+		}
+		return improved;
+	}
+
+	// Handing h hours from a to b changes the objective by 2h(db - da + h), so any b below da - h improves it
+	private boolean move(int s, int a, boolean backup) {
+		double hours = p.sessionMinutes[s] / 60.0;
+		if (hours <= 0) return false;
+		eligibleCandidates(s, backup);
+		int b = leastDeviation(deviation(a) - hours);
+		if (b == CompiledProblem.NONE) return false;
+		st.unbook(a, s);
+		st.book(b, s);
+		replace(s, a, b, backup);
+		moves++;
+		return true;
+	}
+
+	private boolean swapPass() {
+		Integer[] order = new Integer[members.length];
+		for (int i = 0; i < members.length; i++) order[i] = members[i];
+		Arrays.sort(order, (x, y) -> Double.compare(deviation(y), deviation(x)));
+		boolean improved = false;
+		for (int i = 0; i < order.length; i++) {
+			for (int j = order.length - 1; j > i; j--) {
+				if (expired()) return improved;
+				if (deviation(order[i]) <= deviation(order[j])) break;
+				improved |= swapAny(order[i], order[j]);
+			}
+		}
+		return improved;
+	}
+
+	// Trades a longer booking of a for a shorter one of b; the same delta rule as a move applies to the difference
+	private boolean swapAny(int a, int b) {
+		int aCount = ledger.primarySessionCount(a) + ledger.backupSessionCount(a);
+		int bCount = ledger.primarySessionCount(b) + ledger.backupSessionCount(b);
+		for (int i = 0; i < aCount; i++) {
+			boolean aBackup = i >= ledger.primarySessionCount(a);
+			int s1 = aBackup ? ledger.backupSession(a, i - ledger.primarySessionCount(a)) : ledger.primarySession(a, i);
+			for (int j = 0; j < bCount; j++) {
+				boolean bBackup = j >= ledger.primarySessionCount(b);
+				int s2 = bBackup ? ledger.backupSession(b, j - ledger.primarySessionCount(b)) : ledger.primarySession(b, j);
+				double hours = (p.sessionMinutes[s1] - p.sessionMinutes[s2]) / 60.0;
+				if (s1 == s2 || hours <= 0 || deviation(a) - deviation(b) <= hours) continue;
+				st.unbook(a, s1);
+				st.unbook(b, s2);
+				if (canTake(a, s2, bBackup) && canTake(b, s1, aBackup)) {
+					st.book(a, s2);
+					st.book(b, s1);
+					replace(s1, a, b, aBackup);
+					replace(s2, b, a, bBackup);
+					moves++;
+					return true;
+				}
+				st.book(a, s1);
+				st.book(b, s2);
+			}
+		}
+		return false;
+	}
+
+	// Primaries keep the strict availability and subject rules, backups the backup day rule
+	private void eligibleCandidates(int s, boolean backup) {
+		if (backup) {
+			st.freeCandidates(s, role, p.dayMask[p.dateDay[p.sessionDate[s]]], null, candidates);
+		} else {
+			st.freeCandidates(s, role, p.availableMask(p.sessionDay[s]), p.excludedMask[p.sessionSubject[s]], candidates);
+		}
+	}
+
+	private boolean canTake(int sup, int s, boolean backup) {
+		if (backup) {
+			if (!BitSets.get(p.dayMask[p.dateDay[p.sessionDate[s]]], sup)) return false;
+		} else {
+			if (!BitSets.get(p.availableMask(p.sessionDay[s]), sup)) return false;
+			if (BitSets.get(p.excludedMask[p.sessionSubject[s]], sup)) return false;
+		}
+		return st.isFree(sup, s) && st.withinConsecutiveDaysLimit(sup, s);
+	}
+
+	// Candidate with the lowest deviation strictly below limit; ties go to the lower index
+	private int leastDeviation(double limit) {
+		int best = CompiledProblem.NONE;
+		double bestDeviation = limit;
+		for (int sup = BitSets.nextSetBit(candidates, 0); sup >= 0; sup = BitSets.nextSetBit(candidates, sup + 1)) {
+			double d = deviation(sup);
+			if (d < bestDeviation) {
+				best = sup;
+				bestDeviation = d;
+			}
+		}
+		return best;
+	}
+
+	private void replace(int s, int from, int to, boolean backup) {
+		if (backup) ledger.replaceBackup(s, from, to);
+		else ledger.replacePrimary(s, from, to);
+	}
+
+	private double deviation(int sup) {
+		return st.bookedMinutes(sup) / 60.0 - p.expectedHours[sup];
+	}
+
+	private int unfilledSlots() {
+		int unfilled = 0;
+		for (int s : sessions) unfilled += Math.max(0, p.sessionRequired[s] - ledger.primaryCount(s));
+		return unfilled;
+	}
+
+	private double squaredDeviation() {
+		double sum = 0.0;
+		for (int sup : members) sum += deviation(sup) * deviation(sup);
+		return sum;
+	}
+
+	private boolean expired() {
+		return System.nanoTime() - deadline >= 0 || control.stopped();
+	}
+}
@@ -0,0 +1,152 @@
+package com.supervisor.assignment.logic;
+
+import java.util.Arrays;
+
+/**
+ * Min-cost max-flow over a small graph with non-negative edge costs, by successive shortest
+ * paths: Dijkstra on reduced costs with node potentials, over an indexed binary heap.
+ */
+final class MinCostFlow {
+	private final int nodes;
+	private int[] head;
+	private int[] next = new int[64];
+	private int[] to = new int[64];
+	private int[] capacity = new int[64];
+	private long[] cost = new long[64];
+	private int edges;
+
+	private final long[] potential;
+	private final long[] dist;
+	private final int[] parentEdge;
+	private final int[] heap;
+	private final int[] heapPos;
+	private int heapSize;
+
+	MinCostFlow(int nodes) {
+		this.nodes = nodes;
+		this.head = new int[nodes];
+		Arrays.fill(head, -1);
+		this.potential = new long[nodes];
+		this.dist = new long[nodes];
+		this.parentEdge = new int[nodes];
+		this.heap = new int[nodes];
+		this.heapPos = new int[nodes];
+	}
+
+	/** Adds an edge and its residual twin; returns the edge id for {@link #flowOn}. */
+	int addEdge(int from, int target, int cap, long edgeCost) {
+		if (edges + 2 > to.length) {
+			int size = to.length * 2;
+			next = Arrays.copyOf(next, size);
+			to = Arrays.copyOf(to, size);
+			capacity = Arrays.copyOf(capacity, size);
+			cost = Arrays.copyOf(cost, size);
+		}
+		int id = edges;
+		link(from, target, cap, edgeCost);
+		link(target, from, 0, -edgeCost);
+		return id;
+	}
+
+	private void link(int from, int target, int cap, long edgeCost) {
+		to[edges] = target;
+		capacity[edges] = cap;
+		cost[edges] = edgeCost;
+		next[edges] = head[from];
+		head[from] = edges++;
+	}
+
+	int flowOn(int edge) {
+		return capacity[edge ^ 1];
+	}
+
+	/** Pushes the maximum flow from source to sink at minimum total cost; returns the flow. */
+	int solve(int source, int sink) {
+		int flow = 0;
+		while (true) {
+			shortestPaths(source);
+			if (dist[sink] == Long.MAX_VALUE) break;
+			for (int v = 0; v < nodes; v++) {
+				if (dist[v] != Long.MAX_VALUE) potential[v] += dist[v];
+			}
+			int push = Integer.MAX_VALUE;
+			for (int v = sink; v != source; v = to[parentEdge[v] ^ 1]) push = Math.min(push, capacity[parentEdge[v]]);
+			for (int v = sink; v != source; v = to[parentEdge[v] ^ 1]) {
+				capacity[parentEdge[v]] -= push;
+				capacity[parentEdge[v] ^ 1] += push;
+			}
+			flow += push;
+		}
+		return flow;
+	}
+
+	// Dijkstra on reduced costs. A node left unreachable stays so: every edge into it is saturated
+	// and only flow out of it could free one, so its stale potential is never used again.
+	private void shortestPaths(int source) {
+		Arrays.fill(dist, Long.MAX_VALUE);
+		Arrays.fill(heapPos, -1);
+		heapSize = 0;
+		dist[source] = 0;
+		push(source);
+		while (heapSize > 0) {
+			int u = pop();
+			for (int e = head[u]; e >= 0; e = next[e]) {
+				if (capacity[e] == 0) continue;
+				int v = to[e];
+				long d = dist[u] + cost[e] + potential[u] - potential[v];
+				if (d < dist[v]) {
+					dist[v] = d;
+					parentEdge[v] = e;
+					if (heapPos[v] == -1) push(v);
+					else if (heapPos[v] >= 0) siftUp(heapPos[v]);
+				}
+			}
+		}
+	}
+
+	private void push(int v) {
+		heap[heapSize] = v;
+		heapPos[v] = heapSize;
+		siftUp(heapSize++);
+	}
+
+	private int pop() {
+		int top = heap[0];
+		heapPos[top] = -2; // settled
+		int last = heap[--heapSize];
+		if (heapSize > 0) {
+			heap[0] = last;
+			heapPos[last] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	private void siftUp(int i) {
+		int v = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (dist[heap[parent]] <= dist[v]) break;
+			heap[i] = heap[parent];
+			heapPos[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = v;
+		heapPos[v] = i;
+	}
+
+	private void siftDown(int i) {
+		int v = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= heapSize) break;
+			if (child + 1 < heapSize && dist[heap[child + 1]] < dist[heap[child]]) child++;
+			if (dist[heap[child]] >= dist[v]) break;
+			heap[i] = heap[child];
+			heapPos[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = v;
+		heapPos[v] = i;
+	}
+}
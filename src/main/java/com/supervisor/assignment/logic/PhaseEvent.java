@@ -0,0 +1,28 @@
+package com.supervisor.assignment.logic;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One phase of an engine call on one thread, spanning the same interval as the phase times of
+ * {@link com.supervisor.assignment.model.SolveStats}. Off unless enabled in the recording settings.
+ */
+@Name("com.supervisor.assignment.Phase")
+@Label("Assignment Phase")
+@Category("Supervisor Assignment")
+@Description("A phase of AssignmentEngine for one role, or for every role when the role is empty")
+@Enabled(false)
+final class PhaseEvent extends Event {
+	@Label("Phase")
+	String phase;
+
+	@Label("Role")
+	String role;
+
+	@Label("Slots")
+	int slots;
+}
@@ -0,0 +1,18 @@
+package com.supervisor.assignment.logic;
+
+import com.supervisor.assignment.model.RoleType;
+import com.supervisor.assignment.model.SolvePhase;
+
+/**
+ * Receives progress of an {@link AssignmentEngine} call. Roles, and multi-start runs, are solved
+ * concurrently, so calls may come from several threads and phases of different roles interleave.
+ * Implementations should return quickly.
+ */
+public interface ProgressListener {
+	/** A phase begins; {@code role} is null for phases over every role. */
+	void phaseStarted(SolvePhase phase, RoleType role, int slots);
+
+	/** Slots completed so far within a running phase, reported in batches. */
+	default void slotsCompleted(SolvePhase phase, RoleType role, int completed, int slots) {
+	}
+}
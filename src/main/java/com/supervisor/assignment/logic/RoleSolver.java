@@ -0,0 +1,596 @@
+package com.supervisor.assignment.logic;
+
+import com.supervisor.assignment.model.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Greedy solve for the supervisors of one role. Every filter matches the supervisor role to
+ * the slot role, so roles never compete for the same supervisor and each role can be solved
+ * on its own {@link SolverState}, concurrently with the others. Writes go to the shared
+ * {@link AssignmentLedger} only at this role's sessions and supervisors.
+ */
+final class RoleSolver {
+	// Shorter blocks leave most picks next to a boundary, where the consecutive-days limit
+	// is only seen after merging. A three-week term of 15 to 18 exam dates thus splits into at
+	// most four blocks, so at most two blocks per role are solved concurrently in each round
+	private static final int MIN_DATES_PER_BLOCK = 4;
+	// Candidate sets under 1/SPARSE_POOL of the role are compared bit by bit; larger ones are
+	// met within a few steps of the heap walk, which stops after the first load group
+	private static final int SPARSE_POOL = 16;
+	static final String AUTO_BACKFILL = "Auto backfill due to constraints";
+	static final String STOPPED_EARLY = "Solve stopped before this session was completed";
+	private static final int PROGRESS_BATCH = 256; // slots between progress reports and stop checks
+
+	private final CompiledProblem p;
+	private final int role;
+	private final SolverState st;
+	private final AssignmentLedger ledger;
+	private final SchedulingMode mode;
+	private final SolverMode solverMode;
+	private final int[] nameRank;
+	private final int dateBlocks;
+	private final long improvementMillis;
+	private final long[] candidates;
+	private final int[] pool;
+	private final int backupFrom;  // this role covers backups of sessions [backupFrom, backupTo)
+	private final int backupTo;
+	private final SolveControl control;
+	final AssignmentResult.SessionAssignment[] sessionAssignments; // by session index, this role only
+	final List<AssignmentResult.BackupAssignment> backupAssignments = new ArrayList<>();
+	AssignmentResult.ImprovementSummary improvement; // null unless the improvement phase ran
+	boolean stopped; // cancelled or out of time before the phases after the primaries completed
+	final SolveMeter meter = new SolveMeter();
+
+	RoleSolver(CompiledProblem p, int role, AssignmentLedger ledger, Config config, int[] nameRank, SolveControl control) {
+		this.p = p;
+		this.role = role;
+		this.st = new SolverState(p, role, nameRank);
+		this.ledger = ledger;
+		this.mode = config.getSchedulingMode();
+		this.solverMode = config.getSolverMode();
+		this.nameRank = nameRank;
+		this.dateBlocks = config.getDateBlocks();
+		this.improvementMillis = config.getImprovementMillis();
+		this.candidates = BitSets.create(p.supervisorCount);
+		this.pool = new int[p.supervisorCount];
+		this.control = control;
+		if (role == RoleType.INVIGILATOR.ordinal()) {
+			this.backupFrom = 0;
+			this.backupTo = p.inputSessionCount;
+		} else if (role == RoleType.FLOOR_SUPERVISOR.ordinal()) {
+			this.backupFrom = p.inputSessionCount;
+			this.backupTo = p.floorSlotEnd;
+		} else {
+			this.backupFrom = 0;
+			this.backupTo = 0;
+		}
+		this.sessionAssignments = new AssignmentResult.SessionAssignment[p.sessionCount];
+	}
+
+	SolverState state() {
+		return st;
+	}
+
+	private void phase(SolvePhase phase, int slots) {
+		meter.enter(phase, role, slots);
+		control.phase(phase, role, slots);
+	}
+
+	/**
+	 * Runs every phase for this role: primaries over {@code order} (this role's sessions in
+	 * global slot order), backfill, consolidation, backups and the optional improvement phase.
+	 */
+	void solve(int[] order) {
+		phase(SolvePhase.GREEDY, order.length);
+		int[][] blocks = dateBlocks > 1 && solverMode != SolverMode.MIN_COST_FLOW ? partitionByDate(order, dateBlocks) : null;
+		if (solverMode == SolverMode.MIN_COST_FLOW) {
+			solvePrimariesByFlow(order);
+		} else if (blocks != null && blocks.length > 1) {
+			solvePrimariesByDate(blocks);
+		} else {
+			for (int i = 0; i < order.length; i++) {
+				if ((i & (PROGRESS_BATCH - 1)) == 0 && i > 0) {
+					if (control.stopped()) break;
+					control.progress(SolvePhase.GREEDY, role, i, order.length);
+				}
+				int s = order[i];
+				for (int k = 0; k < p.sessionRequired[s]; k++) {
+					int chosen = pickPrimary(st, candidates, s, meter);
+					if (chosen == CompiledProblem.NONE) continue;
+					ledger.addPrimary(s, chosen);
+					st.book(chosen, s);
+				}
+			}
+		}
+
+		int[] sessions = order.clone();
+		Arrays.sort(sessions);
+		boolean[] forced = new boolean[p.sessionCount];
+		stopped = !completePhases(sessions, forced);
+		meter.leave();
+		buildResults(sessions, forced);
+	}
+
+	// Phases after the primaries; a stop skips the rest, leaves the primaries as they are and returns false
+	private boolean completePhases(int[] sessions, boolean[] forced) {
+		if (control.stopped()) return false;
+		phase(SolvePhase.BACKFILL, sessions.length);
+		// Backfill any sessions lacking required supervisors by relaxing availability/max-hours but preserving no-overlap
+		for (int s : sessions) {
+			while (ledger.primaryCount(s) < p.sessionRequired[s]) {
+				meter.slots++;
+				st.freeCandidates(s, role, null, null, candidates);
+				ledger.excludePrimaries(s, candidates);
+				int chosen = pickBest(st, candidates, s, meter);
+				if (chosen == CompiledProblem.NONE) break; // cannot fill further without overlaps
+				ledger.addPrimary(s, chosen);
+				st.book(chosen, s);
+				meter.backfills++;
+			}
+		}
+
+		if (control.stopped()) return false;
+		phase(SolvePhase.CONSOLIDATION, sessions.length);
+		// After backfill, try to force assign one minimal-overlap candidate to sessions left empty (still avoiding overlaps may leave none)
+		for (int s : sessions) {
+			if (ledger.primaryCount(s) > 0) continue;
+			meter.slots++;
+			st.freeCandidates(s, role, null, null, candidates);
+			if (pickLeastLoaded(1) > 0) {
+				ledger.addPrimary(s, pool[0]);
+				st.book(pool[0], s);
+				forced[s] = true;
+				meter.autoBackfills++;
+			}
+		}
+
+		if (control.stopped()) return false;
+		phase(SolvePhase.BACKUPS, backupTo - backupFrom);
+		// Generate backups (احتياطي): for each session, assign backups equal to required count (distinct and not assigned as primary on same session/date)
+		for (int s = backupFrom; s < backupTo; s++) {
+			if ((s & (PROGRESS_BATCH - 1)) == 0 && control.stopped()) return false;
+			assignBackups(s, backupsNeeded(s));
+		}
+
+		if (improvementMillis > 0 && !control.stopped()) {
+			phase(SolvePhase.IMPROVEMENT, sessions.length);
+			improvement = new LocalSearch(p, role, st, ledger, sessions, improvementMillis, control).run();
+		}
+		return true;
+	}
+
+	/**
+	 * Repairs this role on top of the kept assignments, already booked in the ledger and the
+	 * state. Open primary slots of touched sessions in {@code order} are filled by promoting the
+	 * session's own backups first, then by free supervisors as in the greedy and its fallback.
+	 * Open backup slots of sessions marked for refill are filled as in the full solve.
+	 */
+	void repair(int[] order, boolean[] touched, boolean[] refill, boolean[] forced) {
+		phase(SolvePhase.GREEDY, order.length);
+		for (int s : order) {
+			if (!touched[s]) continue;
+			if (s >= backupFrom && s < backupTo) {
+				for (int i = 0; i < ledger.backupCount(s) && ledger.primaryCount(s) < p.sessionRequired[s]; ) {
+					int sup = ledger.backup(s, i);
+					if (BitSets.get(p.excludedMask[p.sessionSubject[s]], sup)) {
+						i++;
+						continue;
+					}
+					// Same session, so the booking in the state stays as it is
+					ledger.removeBackup(s, sup);
+					ledger.addPrimary(s, sup);
+				}
+			}
+			while (ledger.primaryCount(s) < p.sessionRequired[s]) {
+				int chosen = pickPrimary(st, candidates, s, meter);
+				if (chosen == CompiledProblem.NONE) break;
+				ledger.addPrimary(s, chosen);
+				st.book(chosen, s);
+			}
+		}
+		phase(SolvePhase.BACKUPS, backupTo - backupFrom);
+		for (int s = backupFrom; s < backupTo; s++) {
+			if (refill[s] && ledger.backupCount(s) < backupsNeeded(s)) assignBackups(s, backupsNeeded(s) - ledger.backupCount(s));
+		}
+		meter.leave();
+
+		int[] sessions = order.clone();
+		Arrays.sort(sessions);
+		buildResults(sessions, forced);
+	}
+
+	// Backups for floor supervisors: exactly 1
+	private int backupsNeeded(int s) {
+		return role == RoleType.INVIGILATOR.ordinal() ? Math.max(0, p.sessions[s].getSupervisorsRequired()) : 1;
+	}
+
+	// Consolidate per-session results
+	private void buildResults(int[] sessions, boolean[] forced) {
+		for (int s : sessions) {
+			AssignmentResult.SessionAssignment sa = new AssignmentResult.SessionAssignment();
+			sa.setSession(p.sessions[s]);
+			int req = p.sessionRequired[s];
+			if (forced[s]) {
+				sa.setStatus("PartiallyAssigned");
+				sa.setReason(AUTO_BACKFILL);
+			} else if (ledger.primaryCount(s) == req) {
+				sa.setStatus("Assigned");
+			} else if (ledger.primaryCount(s) > 0) {
+				sa.setStatus("PartiallyAssigned");
+				sa.setReason("Insufficient eligible supervisors or conflicts");
+			} else {
+				sa.setStatus("Unassigned");
+				sa.setReason("No free supervisors (overlap constraint)");
+			}
+			if (stopped && !"Assigned".equals(sa.getStatus())) sa.setReason(STOPPED_EARLY);
+			sa.setAssignedSupervisors(ledger.primaryNames(s));
+			sessionAssignments[s] = sa;
+		}
+		for (int s = backupFrom; s < backupTo; s++) {
+			SubjectSession session = p.sessions[s];
+			for (int i = 0; i < ledger.backupCount(s); i++) {
+				AssignmentResult.BackupAssignment ba = new AssignmentResult.BackupAssignment();
+				ba.setDate(session.getDate());
+				ba.setPeriod(session.getPeriod());
+				ba.setRole(RoleType.values()[role]);
+				ba.setSupervisor(p.supervisorNames[ledger.backup(s, i)]);
+				ba.setBuilding(session.getBuilding());
+				ba.setSessionId(session.getId());
+				ba.setSubject(session.getSubjectName());
+				backupAssignments.add(ba);
+			}
+		}
+	}
+
+	private void assignBackups(int s, int needed) {
+		SubjectSession session = p.sessions[s];
+		if (!p.sessionHasDate[s] || session.getPeriod() == null) return;
+		int date = p.sessionDate[s];
+		st.freeCandidates(s, role, p.dayMask[p.dateDay[date]], null, candidates);
+		// Primaries of another role's session are never candidates here
+		if (p.sessionRole[s] == role) ledger.excludePrimaries(s, candidates);
+		meter.slots += needed;
+		int size = pickLeastLoaded(needed);
+		for (int i = 0; i < size; i++) ledger.addBackup(s, pool[i]);
+		for (int i = 0; i < size; i++) st.book(pool[i], s);
+	}
+
+	/**
+	 * Solves primaries cluster by cluster, a cluster being sessions of one date and length that
+	 * all share a common instant, in the order of their first slot. No supervisor can take two
+	 * sessions of a cluster, so its slots and free supervisors form a bipartite graph solved as a
+	 * min-cost max-flow: coverage is maximal and, among maximal covers, the tier, load ratio and
+	 * schedule preference cost is minimal. Supervisors outside the availability and subject rules
+	 * are only used at a penalty, like the greedy fallback.
+	 */
+	private void solvePrimariesByFlow(int[] order) {
+		int[] position = new int[p.sessionCount];
+		for (int i = 0; i < order.length; i++) position[order[i]] = i;
+		long[] byStart = new long[order.length];
+		for (int i = 0; i < order.length; i++) {
+			int s = order[i];
+			byStart[i] = ((long) p.sessionDate[s] << 49) | ((long) (1439 - p.sessionMinutes[s]) << 37) | ((long) p.sessionStart[s] << 26) | s;
+		}
+		Arrays.sort(byStart);
+		List<int[]> clusters = new ArrayList<>();
+		int[] cluster = new int[order.length];
+		int size = 0;
+		int minEnd = 0;
+		for (long packed : byStart) {
+			int s = (int) (packed & ((1 << 26) - 1));
+			int head = cluster[0];
+			if (size > 0 && (p.sessionDate[s] != p.sessionDate[head] || p.sessionMinutes[s] != p.sessionMinutes[head] || p.sessionStart[s] >= minEnd)) {
+				clusters.add(Arrays.copyOf(cluster, size));
+				size = 0;
+			}
+			minEnd = size == 0 ? p.sessionEnd[s] : Math.min(minEnd, p.sessionEnd[s]);
+			cluster[size++] = s;
+		}
+		if (size > 0) clusters.add(Arrays.copyOf(cluster, size));
+		// Clusters go in the order of their first slot, so the hardest sessions still come first
+		long[] byFirstSlot = new long[clusters.size()];
+		for (int c = 0; c < byFirstSlot.length; c++) {
+			int first = Integer.MAX_VALUE;
+			for (int s : clusters.get(c)) first = Math.min(first, position[s]);
+			byFirstSlot[c] = ((long) first << 26) | c;
+		}
+		Arrays.sort(byFirstSlot);
+		for (long packed : byFirstSlot) {
+			if (control.stopped()) return;
+			solveCluster(clusters.get((int) (packed & ((1 << 26) - 1))));
+		}
+	}
+
+	private void solveCluster(int[] cluster) {
+		// Nodes: source, sink, one per session, then one per supervisor with an edge
+		int[] supNode = new int[p.supervisorCount];
+		Arrays.fill(supNode, -1);
+		int supervisors = 0;
+		long[] strict = BitSets.create(p.supervisorCount);
+		for (int s : cluster) {
+			st.freeCandidates(s, role, null, null, candidates);
+			for (int sup = BitSets.nextSetBit(candidates, 0); sup >= 0; sup = BitSets.nextSetBit(candidates, sup + 1)) {
+				if (supNode[sup] < 0) supNode[sup] = supervisors++;
+			}
+		}
+		int base = 2 + cluster.length;
+		MinCostFlow flow = new MinCostFlow(base + supervisors);
+		int[][] edgeSup = new int[cluster.length][];
+		int[][] edgeId = new int[cluster.length][];
+		boolean[][] edgeRelaxed = new boolean[cluster.length][];
+		for (int i = 0; i < cluster.length; i++) {
+			int s = cluster[i];
+			flow.addEdge(0, 2 + i, p.sessionRequired[s], 0);
+			st.freeCandidates(s, role, p.availableMask(p.sessionDay[s]), p.excludedMask[p.sessionSubject[s]], strict);
+			st.freeCandidates(s, role, null, null, candidates);
+			edgeSup[i] = new int[BitSets.cardinality(candidates)];
+			edgeId[i] = new int[edgeSup[i].length];
+			edgeRelaxed[i] = new boolean[edgeSup[i].length];
+			meter.slots += p.sessionRequired[s];
+			meter.candidates += edgeSup[i].length;
+			meter.pool(BitSets.cardinality(strict));
+			int e = 0;
+			for (int sup = BitSets.nextSetBit(candidates, 0); sup >= 0; sup = BitSets.nextSetBit(candidates, sup + 1), e++) {
+				edgeSup[i][e] = sup;
+				edgeRelaxed[i][e] = !BitSets.get(strict, sup);
+				edgeId[i][e] = flow.addEdge(2 + i, base + supNode[sup], 1, flowCost(sup, s, edgeRelaxed[i][e]));
+			}
+		}
+		for (int v = 0; v < supervisors; v++) flow.addEdge(base + v, 1, 1, 0);
+		flow.solve(0, 1);
+
+		for (int i = 0; i < cluster.length; i++) {
+			for (int e = 0; e < edgeId[i].length; e++) {
+				if (flow.flowOn(edgeId[i][e]) == 0) continue;
+				ledger.addPrimary(cluster[i], edgeSup[i][e]);
+				st.book(edgeSup[i][e], cluster[i]);
+				if (edgeRelaxed[i][e]) meter.relaxed++;
+			}
+		}
+	}
+
+	// One long ordered like the greedy: fallback penalty, fairness tier, load ratio, then preference
+	private long flowCost(int sup, int s, boolean relaxed) {
+		long ratio = Math.min(999_999L, Math.round(st.loadRatio(sup) * 1000));
+		return (((relaxed ? 2L : 0L) + st.tier(sup)) * 1_000_000L + ratio) * 3 + st.schedulePreferenceScore(sup, s, mode);
+	}
+
+	/**
+	 * Solves primaries per date block concurrently. Blocks only interact through load and the
+	 * consecutive-days window, so the even blocks are solved first, each on its own state, and
+	 * merged; the odd blocks are then solved on copies of the merged state, so they see the real
+	 * load and the bookings on both neighbouring blocks. A final {@link #rebalance} pass evens out
+	 * load between blocks of the same round. Each block breaks name ties from a different starting
+	 * point so early picks do not pile onto the same supervisors.
+	 */
+	private void solvePrimariesByDate(int[][] blocks) {
+		int[][] picks = new int[p.sessionCount][];
+		SolveMeter[] blockMeters = new SolveMeter[blocks.length];
+		for (int parity = 0; parity < 2; parity++) {
+			List<ForkJoinTask<?>> tasks = new ArrayList<>();
+			for (int b = parity; b < blocks.length; b += 2) {
+				int block = b;
+				blockMeters[b] = new SolveMeter();
+				tasks.add(ForkJoinTask.adapt(() -> solveBlock(blocks, block, picks, blockMeters[block])));
+			}
+			ForkJoinTask.invokeAll(tasks);
+			for (int b = parity; b < blocks.length; b += 2) meter.add(blockMeters[b]);
+			// Merge in block and slot order; a pick that now overlaps or breaks the consecutive-days
+			// limit across a block boundary is chosen again against the merged state
+			for (int b = parity; b < blocks.length; b += 2) {
+				for (int s : blocks[b]) {
+					if (picks[s] == null) continue; // the block stopped before this session
+					for (int chosen : picks[s]) {
+						if (chosen == CompiledProblem.NONE) continue;
+						if (!st.isFree(chosen, s) || !st.withinConsecutiveDaysLimit(chosen, s)) {
+							chosen = pickPrimary(st, candidates, s, meter);
+							if (chosen == CompiledProblem.NONE) continue;
+						}
+						ledger.addPrimary(s, chosen);
+						st.book(chosen, s);
+					}
+				}
+			}
+		}
+		rebalance(blocks);
+	}
+
+	/**
+	 * One pass in block and slot order that hands a primary to the supervisor the greedy would
+	 * now pick, when that supervisor stays below the holder's current load ratio. Blocks of one
+	 * round cannot see each other's picks, so a supervisor left light by all of them is only
+	 * caught up here.
+	 */
+	private void rebalance(int[][] blocks) {
+		for (int[] block : blocks) {
+			if (control.stopped()) return;
+			for (int s : block) {
+				double hours = p.sessionMinutes[s] / 60.0;
+				for (int i = 0; i < ledger.primaryCount(s); i++) {
+					int a = ledger.primary(s, i);
+					meter.slots++;
+					st.freeCandidates(s, role, p.availableMask(p.sessionDay[s]), p.excludedMask[p.sessionSubject[s]], candidates);
+					int b = pickBest(st, candidates, s, meter);
+					if (b == CompiledProblem.NONE || st.loadRatio(b) + hours / Math.max(0.1, p.expectedHours[b]) >= st.loadRatio(a)) continue;
+					st.unbook(a, s);
+					st.book(b, s);
+					ledger.replacePrimary(s, a, b);
+				}
+			}
+		}
+	}
+
+	// Greedy primaries for one date block, on top of the primaries merged so far
+	private void solveBlock(int[][] blocks, int block, int[][] picks, SolveMeter blockMeter) {
+		int offset = block * p.supervisorCount / blocks.length;
+		int[] blockRank = new int[nameRank.length];
+		for (int i = 0; i < blockRank.length; i++) blockRank[i] = (nameRank[i] + offset) % blockRank.length;
+		SolverState blockState = new SolverState(p, role, blockRank);
+		for (int b = block % 2 == 0 ? blocks.length : 0; b < blocks.length; b += 2) {
+			for (int s : blocks[b]) {
+				for (int i = 0; i < ledger.primaryCount(s); i++) blockState.book(ledger.primary(s, i), s);
+			}
+		}
+		long[] blockCandidates = BitSets.create(p.supervisorCount);
+		for (int s : blocks[block]) {
+			if (control.stopped()) return;
+			int[] chosen = new int[p.sessionRequired[s]];
+			for (int k = 0; k < chosen.length; k++) {
+				chosen[k] = pickPrimary(blockState, blockCandidates, s, blockMeter);
+				if (chosen[k] != CompiledProblem.NONE) blockState.book(chosen[k], s);
+			}
+			picks[s] = chosen;
+		}
+	}
+
+	// Splits the slot order into contiguous date ranges holding about the same number of sessions
+	// and spanning at least MIN_DATES_PER_BLOCK dates each
+	private int[][] partitionByDate(int[] order, int blocks) {
+		int[] perDate = new int[p.dates.length];
+		int usedDates = 0;
+		for (int s : order) if (perDate[p.sessionDate[s]]++ == 0) usedDates++;
+		blocks = Math.min(blocks, usedDates / MIN_DATES_PER_BLOCK);
+		int[] blockOfDate = new int[p.dates.length];
+		int block = 0;
+		int datesInBlock = 0;
+		int seen = 0;
+		for (int d = 0; d < perDate.length; d++) {
+			if (perDate[d] == 0) continue;
+			// Advance once this block holds its share, keeping every block non-empty
+			if (seen * (long) blocks >= (long) (block + 1) * order.length && datesInBlock >= MIN_DATES_PER_BLOCK && block < blocks - 1) {
+				block++;
+				datesInBlock = 0;
+			}
+			blockOfDate[d] = block;
+			datesInBlock++;
+			seen += perDate[d];
+		}
+		int[] size = new int[block + 1];
+		for (int s : order) size[blockOfDate[p.sessionDate[s]]]++;
+		int[][] result = new int[block + 1][];
+		for (int b = 0; b < result.length; b++) result[b] = new int[size[b]];
+		Arrays.fill(size, 0);
+		for (int s : order) {
+			int b = blockOfDate[p.sessionDate[s]];
+			result[b][size[b]++] = s;
+		}
+		return result;
+	}
+
+	private int pickPrimary(SolverState state, long[] out, int s, SolveMeter meter) {
+		meter.slots++;
+		state.freeCandidates(s, role, p.availableMask(p.sessionDay[s]), p.excludedMask[p.sessionSubject[s]], out);
+		int poolSize = BitSets.cardinality(out);
+		meter.pool(poolSize);
+		int chosen = pickBest(state, out, s, meter);
+		if (chosen == CompiledProblem.NONE) {
+			// Fallback: relax availability and max-hours to ensure coverage, but still avoid overlaps
+			meter.relaxed++;
+			state.freeCandidates(s, role, null, null, out);
+			chosen = pickBest(state, out, s, meter);
+		}
+		if (meter.slots % SlotDecisionEvent.SAMPLE_EVERY == 1) {
+			SlotDecisionEvent event = new SlotDecisionEvent();
+			if (event.isEnabled()) {
+				RoleType r = SolveControl.roleOf(role);
+				event.sessionId = p.sessions[s].getId();
+				event.role = r == null ? "" : r.name();
+				event.poolSize = poolSize;
+				event.supervisor = chosen == CompiledProblem.NONE ? "" : p.supervisorNames[chosen];
+				event.loadRatio = chosen == CompiledProblem.NONE ? Double.NaN : state.loadRatio(chosen);
+				event.commit();
+			}
+		}
+		return chosen;
+	}
+
+	// Best feasible supervisor by fairness tier, load ratio, schedule preference, then name
+	int pickBest(SolverState st, long[] candidates, int s, SolveMeter meter) {
+		LoadHeap heap = st.heap();
+		if (BitSets.cardinality(candidates) * SPARSE_POOL < heap.size()) return pickBestOf(st, candidates, s, meter);
+		int chosen = CompiledProblem.NONE;
+		int chosenScore = Integer.MAX_VALUE;
+		heap.scan();
+		for (int sup = heap.next(); sup >= 0; sup = heap.next()) {
+			if (chosen != CompiledProblem.NONE && !heap.sameLoad(sup, chosen)) break;
+			meter.candidates++;
+			if (!BitSets.get(candidates, sup)) continue;
+			int score = st.schedulePreferenceScore(sup, s, mode);
+			if (score < chosenScore) {
+				chosen = sup;
+				chosenScore = score;
+			}
+			// No lower score exists; and with nothing booked yet nobody in this load group is
+			// busy on any date, so they all score the same and name order decides
+			if (chosenScore == 0 || st.bookedMinutes(chosen) == 0) break;
+		}
+		return chosen;
+	}
+
+	// As the heap walk of pickBest, over the candidate bits only
+	private int pickBestOf(SolverState st, long[] candidates, int s, SolveMeter meter) {
+		LoadHeap heap = st.heap();
+		int chosen = CompiledProblem.NONE;
+		int chosenScore = Integer.MAX_VALUE;
+		for (int w = 0; w < candidates.length; w++) {
+			for (long bits = candidates[w]; bits != 0; bits &= bits - 1) {
+				int sup = (w << 6) + Long.numberOfTrailingZeros(bits);
+				meter.candidates++;
+				int cmp = chosen == CompiledProblem.NONE ? -1 : heap.compareLoad(sup, chosen);
+				if (cmp > 0) continue;
+				int score = st.schedulePreferenceScore(sup, s, mode);
+				if (cmp < 0 || score < chosenScore || (score == chosenScore && heap.before(sup, chosen))) {
+					chosen = sup;
+					chosenScore = score;
+				}
+			}
+		}
+		return chosen;
+	}
+
+	// Least-loaded feasible supervisors by fairness tier and load ratio, ties in roster order,
+	// written to pool. When anyone is under the fairness cap, only under-cap candidates are returned.
+	private int pickLeastLoaded(int needed) {
+		if (needed <= 0) return 0;
+		LoadHeap heap = st.heap();
+		int size = 0;
+		if (BitSets.cardinality(candidates) * SPARSE_POOL < heap.size()) {
+			// Keep the needed lowest keys; bits come in roster order, so equal keys stay in it
+			for (int w = 0; w < candidates.length; w++) {
+				for (long bits = candidates[w]; bits != 0; bits &= bits - 1) {
+					int sup = (w << 6) + Long.numberOfTrailingZeros(bits);
+					meter.candidates++;
+					if (size == needed && heap.compareLoad(sup, pool[size - 1]) >= 0) continue;
+					int i = size < needed ? size++ : size - 1;
+					while (i > 0 && heap.compareLoad(sup, pool[i - 1]) < 0) {
+						pool[i] = pool[i - 1];
+						i--;
+					}
+					pool[i] = sup;
+				}
+			}
+		} else {
+			heap.scan();
+			for (int sup = heap.next(); sup >= 0; sup = heap.next()) {
+				if (size >= needed && !heap.sameLoad(sup, pool[size - 1])) break;
+				meter.candidates++;
+				if (BitSets.get(candidates, sup)) pool[size++] = sup;
+			}
+			for (int i = 0; i < size; ) {
+				int j = i + 1;
+				while (j < size && heap.sameLoad(pool[j], pool[i])) j++;
+				Arrays.sort(pool, i, j);
+				i = j;
+			}
+		}
+		if (size == 0) return 0;
+		size = Math.min(size, needed);
+		if (st.tier(pool[0]) == 0) {
+			while (st.tier(pool[size - 1]) != 0) size--;
+		}
+		return size;
+	}
+}
@@ -0,0 +1,40 @@
+package com.supervisor.assignment.logic;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A primary pick, sampled every {@link #SAMPLE_EVERY} slots of a solver so that even a large solve
+ * records a bounded number. Off unless enabled in the recording settings.
+ */
+@Name("com.supervisor.assignment.SlotDecision")
+@Label("Assignment Slot Decision")
+@Category("Supervisor Assignment")
+@Description("A sampled primary pick: the strict candidate pool and the load of the supervisor chosen")
+@Enabled(false)
+@StackTrace(false)
+final class SlotDecisionEvent extends Event {
+	static final int SAMPLE_EVERY = 64;
+
+	@Label("Session Id")
+	String sessionId;
+
+	@Label("Role")
+	String role;
+
+	@Label("Pool Size")
+	@Description("Candidates meeting the availability and subject rules")
+	int poolSize;
+
+	@Label("Supervisor")
+	String supervisor;
+
+	@Label("Load Ratio")
+	@Description("Booked hours over expected hours of the chosen supervisor before the pick; NaN when none was found")
+	double loadRatio;
+}
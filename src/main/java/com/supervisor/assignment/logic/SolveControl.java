@@ -0,0 +1,44 @@
+package com.supervisor.assignment.logic;
+
+import com.supervisor.assignment.model.RoleType;
+import com.supervisor.assignment.model.SolvePhase;
+
+/**
+ * Progress listener, cancellation token and deadline of one engine call, shared by every run
+ * and role. Once stopped it stays stopped, so all solvers see the same answer.
+ */
+final class SolveControl {
+	private static final RoleType[] ROLES = RoleType.values();
+
+	private final ProgressListener listener;
+	private final CancellationToken token;
+	private final long deadline;
+	private final boolean timed;
+	private volatile boolean stopped;
+
+	SolveControl(ProgressListener listener, CancellationToken token, long maxMillis) {
+		this.listener = listener;
+		this.token = token;
+		this.timed = maxMillis > 0;
+		this.deadline = System.nanoTime() + maxMillis * 1_000_000L;
+	}
+
+	boolean stopped() {
+		if (stopped) return true;
+		if ((token != null && token.isCancelled()) || (timed && System.nanoTime() - deadline >= 0)) stopped = true;
+		return stopped;
+	}
+
+	void phase(SolvePhase phase, int role, int slots) {
+		if (listener != null) listener.phaseStarted(phase, roleOf(role), slots);
+	}
+
+	void progress(SolvePhase phase, int role, int completed, int slots) {
+		if (listener != null) listener.slotsCompleted(phase, roleOf(role), completed, slots);
+	}
+
+	// Role slots past the enum hold sessions without a required role
+	static RoleType roleOf(int role) {
+		return role >= 0 && role < ROLES.length ? ROLES[role] : null;
+	}
+}
@@ -0,0 +1,115 @@
+package com.supervisor.assignment.logic;
+
+import com.supervisor.assignment.model.RoleType;
+import com.supervisor.assignment.model.SolvePhase;
+import com.supervisor.assignment.model.SolveStats;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Phase timings and counters of one thread's share of a solve; meters of concurrent solvers
+ * are summed with {@link #add} once their tasks have joined. Allocations come from the thread
+ * allocation counter, so a phase that forks tasks counts only what its own thread allocates.
+ * Each phase is also a {@link PhaseEvent} when that event is enabled in a flight recording.
+ */
+final class SolveMeter {
+	private static final com.sun.management.ThreadMXBean THREADS = threads();
+	private static final SolvePhase[] PHASES = SolvePhase.values();
+
+	private final long[] phaseNanos = new long[PHASES.length];
+	private final long[] phaseBytes = new long[PHASES.length];
+	private final boolean[] phaseSeen = new boolean[PHASES.length];
+	private int phase = -1;
+	private long phaseStartNanos;
+	private long phaseStartBytes;
+	private PhaseEvent event;
+	long slots;
+	long candidates;
+	long relaxed;
+	long backfills;
+	long autoBackfills;
+	final long[] poolSizes = new long[SolveStats.POOL_SIZE_BUCKETS];
+
+	/** Ends the current phase, if any, and starts timing {@code next}; role -1 is every role. */
+	void enter(SolvePhase next, int role, int slots) {
+		leave();
+		phase = next.ordinal();
+		phaseSeen[phase] = true;
+		PhaseEvent e = new PhaseEvent();
+		if (e.isEnabled()) {
+			RoleType r = SolveControl.roleOf(role);
+			e.phase = next.name();
+			e.role = r == null ? "" : r.name();
+			e.slots = slots;
+			e.begin();
+			event = e;
+		}
+		phaseStartBytes = allocatedBytes();
+		phaseStartNanos = System.nanoTime();
+	}
+
+	void leave() {
+		if (phase < 0) return;
+		phaseNanos[phase] += System.nanoTime() - phaseStartNanos;
+		if (phaseStartBytes >= 0) phaseBytes[phase] += allocatedBytes() - phaseStartBytes;
+		else phaseBytes[phase] = -1;
+		phase = -1;
+		if (event != null) {
+			event.commit();
+			event = null;
+		}
+	}
+
+	void pool(int size) {
+		poolSizes[SolveStats.poolSizeBucket(size)]++;
+	}
+
+	void add(SolveMeter other) {
+		for (int i = 0; i < PHASES.length; i++) {
+			phaseSeen[i] |= other.phaseSeen[i];
+			phaseNanos[i] += other.phaseNanos[i];
+			phaseBytes[i] = phaseBytes[i] < 0 || other.phaseBytes[i] < 0 ? -1 : phaseBytes[i] + other.phaseBytes[i];
+		}
+		slots += other.slots;
+		candidates += other.candidates;
+		relaxed += other.relaxed;
+		backfills += other.backfills;
+		autoBackfills += other.autoBackfills;
+		for (int i = 0; i < poolSizes.length; i++) poolSizes[i] += other.poolSizes[i];
+	}
+
+	SolveStats toStats(long elapsedNanos) {
+		SolveStats stats = new SolveStats();
+		for (int i = 0; i < PHASES.length; i++) {
+			if (!phaseSeen[i]) continue;
+			SolveStats.PhaseStats ps = new SolveStats.PhaseStats();
+			ps.setPhase(PHASES[i]);
+			ps.setWallMillis(phaseNanos[i] / 1e6);
+			ps.setAllocatedBytes(phaseBytes[i]);
+			stats.getPhases().add(ps);
+		}
+		stats.setElapsedMillis(elapsedNanos / 1e6);
+		stats.setSlotsProcessed(slots);
+		stats.setCandidatesScanned(candidates);
+		stats.setRelaxedAvailabilityFallbacks(relaxed);
+		stats.setBackfills(backfills);
+		stats.setAutoBackfills(autoBackfills);
+		stats.setCandidatePoolSizes(poolSizes.clone());
+		return stats;
+	}
+
+	private static long allocatedBytes() {
+		return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+	}
+
+	private static com.sun.management.ThreadMXBean threads() {
+		try {
+			if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+				if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) return threads;
+			}
+		} catch (LinkageError | SecurityException e) {
+			// Not a HotSpot-style JVM; allocations are reported as unknown
+		}
+		return null;
+	}
+}
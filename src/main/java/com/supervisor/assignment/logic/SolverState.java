@@ -0,0 +1,193 @@
+package com.supervisor.assignment.logic;
+
+import com.supervisor.assignment.model.SchedulingMode;
+
+/**
+ * Mutable solve state for the supervisors of one role over a {@link CompiledProblem}. Per-supervisor
+ * counters are indexed by {@link CompiledProblem#memberIndex}, so they are sized by the role's
+ * members. Occupancy is kept once, as supervisor bitsets per time block, with a per-date summary
+ * for the consecutive-days rule; both cover only the words spanned by the role's members, so
+ * candidate sets are computed word-wise. Load ratios are kept in a {@link LoadHeap}.
+ */
+final class SolverState {
+	static final double FAIRNESS_CAP = 1.0; // prefer under or at 100% of expected
+
+	final CompiledProblem problem;
+	private final int[] memberIndex;
+	private final int dateCount;
+	private final int[] bookedMinutes;
+	private final double[] ratioDivisor;
+	private final int[] bookings;
+	private final int[] dayMinutes;   // [member * 7 + day of week]
+	private final int[] dayBookings;  // [member * 7 + day of week]
+	private final int[] dateBookings; // [member * dates + date]
+	private final LoadHeap heap;
+	// Bitsets below hold words [firstWord, firstWord + words) of the supervisor index space
+	private final int firstWord;
+	private final int words;
+	private final long[][] busyOnDate;     // [date] -> supervisors with any booking that day
+	private final long[][] blockOccupants; // [block] -> supervisors booked in that time block
+	private final long[] noBookings;
+
+	/** {@code nameRank} orders supervisors whose load is equal. */
+	SolverState(CompiledProblem problem, int role, int[] nameRank) {
+		this.problem = problem;
+		this.memberIndex = problem.memberIndex;
+		this.dateCount = problem.dates.length;
+		int[] members = problem.roleMembers[role];
+		int m = members.length;
+		this.bookedMinutes = new int[m];
+		this.ratioDivisor = new double[m];
+		for (int i = 0; i < m; i++) ratioDivisor[i] = Math.max(0.1, problem.expectedHours[members[i]]);
+		this.bookings = new int[m];
+		this.dayMinutes = new int[m * 7];
+		this.dayBookings = new int[m * 7];
+		this.dateBookings = new int[m * dateCount];
+		this.heap = new LoadHeap(problem, role, nameRank);
+		this.firstWord = m == 0 ? 0 : members[0] >>> 6;
+		this.words = m == 0 ? 0 : (members[m - 1] >>> 6) - firstWord + 1;
+		this.busyOnDate = new long[dateCount][];
+		for (int d = 0; d < busyOnDate.length; d++) busyOnDate[d] = new long[words];
+		this.blockOccupants = new long[problem.blockCount][];
+		for (int b = 0; b < blockOccupants.length; b++) blockOccupants[b] = new long[words];
+		this.noBookings = new long[words];
+	}
+
+	double loadRatio(int sup) {
+		int i = memberIndex[sup];
+		return (bookedMinutes[i] / 60.0) / ratioDivisor[i];
+	}
+
+	int tier(int sup) {
+		return loadRatio(sup) <= FAIRNESS_CAP ? 0 : 1;
+	}
+
+	int bookedMinutes(int sup) {
+		return bookedMinutes[memberIndex[sup]];
+	}
+
+	int bookings(int sup) {
+		return bookings[memberIndex[sup]];
+	}
+
+	void book(int sup, int session) {
+		int i = memberIndex[sup];
+		bookedMinutes[i] += problem.sessionMinutes[session];
+		bookings[i]++;
+		int day = i * 7 + problem.dateDay[problem.sessionDate[session]];
+		dayMinutes[day] += problem.sessionMinutes[session];
+		dayBookings[day]++;
+		dateBookings[i * dateCount + problem.sessionDate[session]]++;
+		heap.update(sup, loadRatio(sup));
+		set(busyOnDate[problem.sessionDate[session]], sup);
+		set(blockOccupants[problem.sessionBlock[session]], sup);
+	}
+
+	/** Reverts {@link #book}; bookings of one supervisor never overlap, so each holds its block alone. */
+	void unbook(int sup, int session) {
+		int i = memberIndex[sup];
+		bookedMinutes[i] -= problem.sessionMinutes[session];
+		bookings[i]--;
+		int day = i * 7 + problem.dateDay[problem.sessionDate[session]];
+		dayMinutes[day] -= problem.sessionMinutes[session];
+		dayBookings[day]--;
+		if (--dateBookings[i * dateCount + problem.sessionDate[session]] == 0) {
+			clear(busyOnDate[problem.sessionDate[session]], sup);
+		}
+		heap.update(sup, loadRatio(sup));
+		clear(blockOccupants[problem.sessionBlock[session]], sup);
+	}
+
+	LoadHeap heap() {
+		return heap;
+	}
+
+	/**
+	 * Writes into {@code out} the supervisors of {@code role} that are free for the session
+	 * (no booking in an overlapping time block) and stay within the consecutive-days limit.
+	 * {@code available} and {@code excluded} are optional extra masks.
+	 */
+	void freeCandidates(int session, int role, long[] available, long[] excluded, long[] out) {
+		long[] roles = problem.roleMask[role];
+		int[] conflicts = problem.blockConflicts[problem.sessionBlock[session]];
+		int date = problem.sessionDate[session];
+		boolean consecutive = problem.sessionHasDate[session];
+		long[] prev1 = dateBits(problem.datePrev1[date]);
+		long[] prev2 = dateBits(problem.datePrev2[date]);
+		long[] next1 = dateBits(problem.dateNext1[date]);
+		java.util.Arrays.fill(out, 0L);
+		for (int k = 0, w = firstWord; k < words; k++, w++) {
+			long bits = roles[w];
+			if (available != null) bits &= available[w];
+			if (excluded != null) bits &= ~excluded[w];
+			for (int b : conflicts) bits &= ~blockOccupants[b][k];
+			if (consecutive) bits &= ~(prev1[k] & (prev2[k] | next1[k]));
+			out[w] = bits;
+		}
+	}
+
+	private long[] dateBits(int date) {
+		return date == CompiledProblem.NONE ? noBookings : busyOnDate[date];
+	}
+
+	/** Single-supervisor form of the overlap filter in {@link #freeCandidates}. */
+	boolean isFree(int sup, int session) {
+		for (int b : problem.blockConflicts[problem.sessionBlock[session]]) {
+			if (get(blockOccupants[b], sup)) return false;
+		}
+		return true;
+	}
+
+	boolean busyOn(int sup, int date) {
+		return date != CompiledProblem.NONE && get(busyOnDate[date], sup);
+	}
+
+	boolean withinConsecutiveDaysLimit(int sup, int session) {
+		if (!problem.sessionHasDate[session]) return true;
+		return withinConsecutiveDaysLimitOn(sup, problem.sessionDate[session]);
+	}
+
+	boolean withinConsecutiveDaysLimitOn(int sup, int date) {
+		boolean prev1 = busyOn(sup, problem.datePrev1[date]);
+		boolean prev2 = busyOn(sup, problem.datePrev2[date]);
+		if (prev1 && prev2) return false;
+		boolean next1 = busyOn(sup, problem.dateNext1[date]);
+		return !(prev1 && next1);
+	}
+
+	int schedulePreferenceScore(int sup, int session, SchedulingMode mode) {
+		if (!busyOn(sup, problem.sessionDate[session])) return 1;
+		// Candidates never overlap the session, so a booked block touching it means a booking
+		// ends exactly at its start or starts exactly at its end
+		boolean adjacent = false;
+		for (int b : problem.blockAdjacent[problem.sessionBlock[session]]) {
+			if (get(blockOccupants[b], sup)) {
+				adjacent = true;
+				break;
+			}
+		}
+		if (mode == SchedulingMode.BREAK) return adjacent ? 2 : 0;
+		return adjacent ? 0 : 1;
+	}
+
+	/** Booked minutes of a supervisor summed over all dates falling on a day of the week. */
+	int minutesOnDay(int sup, int day) {
+		return dayMinutes[memberIndex[sup] * 7 + day];
+	}
+
+	int bookingsOnDay(int sup, int day) {
+		return dayBookings[memberIndex[sup] * 7 + day];
+	}
+
+	private void set(long[] bits, int sup) {
+		bits[(sup >>> 6) - firstWord] |= 1L << sup;
+	}
+
+	private void clear(long[] bits, int sup) {
+		bits[(sup >>> 6) - firstWord] &= ~(1L << sup);
+	}
+
+	private boolean get(long[] bits, int sup) {
+		return (bits[(sup >>> 6) - firstWord] & (1L << sup)) != 0;
+	}
+}
@@ -7,6 +7,10 @@ public class TimeUtil {
         return aStart.isBefore(bEnd) && bStart.isBefore(aEnd);
     }
 
+    public static boolean overlaps(int aStart, int aEnd, int bStart, int bEnd) {
+        return aStart < bEnd && bStart < aEnd;
+    }
+
     public static int minutesSinceMidnight(LocalTime t) {
         return t.getHour() * 60 + t.getMinute();
     }
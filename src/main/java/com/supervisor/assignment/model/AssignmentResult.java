@@ -107,12 +107,39 @@ public class AssignmentResult {
         public void setBackupHours(double backupHours) { this.backupHours = backupHours; }
     }
 
+    // Outcome of the optional local-search phase; deviation is the sum of squared hours off target
+    public static class ImprovementSummary {
+        private int unfilledSlotsBefore;
+        private int unfilledSlotsAfter;
+        private double squaredDeviationBefore;
+        private double squaredDeviationAfter;
+        private int movesApplied;
+        private long elapsedMillis;
+
+        public int getUnfilledSlotsBefore() { return unfilledSlotsBefore; }
+        public void setUnfilledSlotsBefore(int unfilledSlotsBefore) { this.unfilledSlotsBefore = unfilledSlotsBefore; }
+        public int getUnfilledSlotsAfter() { return unfilledSlotsAfter; }
+        public void setUnfilledSlotsAfter(int unfilledSlotsAfter) { this.unfilledSlotsAfter = unfilledSlotsAfter; }
+        public double getSquaredDeviationBefore() { return squaredDeviationBefore; }
+        public void setSquaredDeviationBefore(double squaredDeviationBefore) { this.squaredDeviationBefore = squaredDeviationBefore; }
+        public double getSquaredDeviationAfter() { return squaredDeviationAfter; }
+        public void setSquaredDeviationAfter(double squaredDeviationAfter) { this.squaredDeviationAfter = squaredDeviationAfter; }
+        public int getMovesApplied() { return movesApplied; }
+        public void setMovesApplied(int movesApplied) { this.movesApplied = movesApplied; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+    }
+
     private List<SessionAssignment> sessionAssignments = new ArrayList<>();
     private List<SupervisorTotals> supervisorTotals = new ArrayList<>();
     private double targetHoursPerSupervisor;
     private double totalHoursNeeded;
     private List<String> warnings = new ArrayList<>();
     private List<BackupAssignment> backupAssignments = new ArrayList<>();
+    private ImprovementSummary improvement;
+    private Long seed; // tie-break seed of the kept run; null when ties went by name
+    private boolean stoppedEarly; // cancelled or out of time; later phases were skipped
+    private SolveStats solveStats;
 
     public List<SessionAssignment> getSessionAssignments() { return sessionAssignments; }
     public List<SupervisorTotals> getSupervisorTotals() { return supervisorTotals; }
@@ -122,6 +149,14 @@ public class AssignmentResult {
     public void setTotalHoursNeeded(double totalHoursNeeded) { this.totalHoursNeeded = totalHoursNeeded; }
     public List<String> getWarnings() { return warnings; }
     public List<BackupAssignment> getBackupAssignments() { return backupAssignments; }
+    public ImprovementSummary getImprovement() { return improvement; }
+    public void setImprovement(ImprovementSummary improvement) { this.improvement = improvement; }
+    public Long getSeed() { return seed; }
+    public void setSeed(Long seed) { this.seed = seed; }
+    public boolean isStoppedEarly() { return stoppedEarly; }
+    public void setStoppedEarly(boolean stoppedEarly) { this.stoppedEarly = stoppedEarly; }
+    public SolveStats getSolveStats() { return solveStats; }
+    public void setSolveStats(SolveStats solveStats) { this.solveStats = solveStats; }
 }
 
 
@@ -1,6 +1,7 @@
 package com.supervisor.assignment.model;
 
 public class Config {
+    // Has no effect; kept so existing callers still compile
     private int timeGranularityMinutes = 30;
     private double fairnessToleranceHours = 1.0;
     private int defaultSupervisorsPerSubject = 2;
@@ -8,11 +9,36 @@ public class Config {
     private boolean allowCrossDay = false;
     private boolean preserveManualOverrides = false;
     private SchedulingMode schedulingMode = SchedulingMode.MIXED;
-
+    // How primaries are chosen; MIN_COST_FLOW ignores dateBlocks
+    private SolverMode solverMode = SolverMode.GREEDY;
+    /**
+     * Split the calendar into this many date blocks (of at least 4 dates) solved in parallel; 0 or 1
+     * solves sequentially. A three-week term yields at most 4 blocks, two solved at a time per role.
+     * Results differ from the sequential greedy within a fixed tolerance: the spread of primary load
+     * ratios in a role (highest minus lowest primary hours over expected hours) is at most 0.1 above
+     * the sequential spread, and at most 2% more of the sessions are left not fully assigned.
+     */
+    private int dateBlocks = 0;
+    // Wall-clock budget for the local-search improvement phase after the greedy; 0 disables it
+    private long improvementMillis = 0;
+    // Independent greedy solves with randomized tie-breaks; the best one is kept
+    private int multiStartRuns = 0;
+    // Seed of the first run; null breaks ties by name. Set it to a result's seed to reproduce that run
+    private Long randomSeed;
+    // Wall-clock limit for the whole solve; 0 means none. When it runs out the best partial result is returned
+    private long maxSolveMillis = 0;
+
+    /**
+     * @deprecated has no effect: overlaps, the consecutive-days limit and per-day hours use exact
+     * start and end minutes, so no time grid is involved
+     */
+    @Deprecated
     public int getTimeGranularityMinutes() {
         return timeGranularityMinutes;
     }
 
+    /** @deprecated has no effect, see {@link #getTimeGranularityMinutes()} */
+    @Deprecated
     public void setTimeGranularityMinutes(int timeGranularityMinutes) {
         this.timeGranularityMinutes = timeGranularityMinutes;
     }
@@ -64,6 +90,52 @@ public class Config {
     public void setSchedulingMode(SchedulingMode schedulingMode) {
         this.schedulingMode = schedulingMode;
     }
-}
 
+    public int getDateBlocks() {
+        return dateBlocks;
+    }
+
+    public void setDateBlocks(int dateBlocks) {
+        this.dateBlocks = dateBlocks;
+    }
+
+    public long getImprovementMillis() {
+        return improvementMillis;
+    }
+
+    public void setImprovementMillis(long improvementMillis) {
+        this.improvementMillis = improvementMillis;
+    }
+
+    public int getMultiStartRuns() {
+        return multiStartRuns;
+    }
+
+    public void setMultiStartRuns(int multiStartRuns) {
+        this.multiStartRuns = multiStartRuns;
+    }
 
+    public Long getRandomSeed() {
+        return randomSeed;
+    }
+
+    public void setRandomSeed(Long randomSeed) {
+        this.randomSeed = randomSeed;
+    }
+
+    public SolverMode getSolverMode() {
+        return solverMode;
+    }
+
+    public void setSolverMode(SolverMode solverMode) {
+        this.solverMode = solverMode;
+    }
+
+    public long getMaxSolveMillis() {
+        return maxSolveMillis;
+    }
+
+    public void setMaxSolveMillis(long maxSolveMillis) {
+        this.maxSolveMillis = maxSolveMillis;
+    }
+}
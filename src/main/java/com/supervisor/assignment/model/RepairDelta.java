@@ -0,0 +1,43 @@
+package com.supervisor.assignment.model;
+
+import java.util.*;
+
+// Late changes applied to an existing result by AssignmentEngine.repair
+public class RepairDelta {
+    private Set<String> removedSupervisors = new HashSet<>();
+    private Map<String, Set<DayOfWeekEnum>> availabilityChanges = new HashMap<>(); // name -> new available days
+    private List<SubjectSession> addedSessions = new ArrayList<>();
+    private List<SubjectSession> movedSessions = new ArrayList<>(); // replace the input session with the same id
+
+    public Set<String> getRemovedSupervisors() {
+        return removedSupervisors;
+    }
+
+    public void setRemovedSupervisors(Set<String> removedSupervisors) {
+        this.removedSupervisors = removedSupervisors;
+    }
+
+    public Map<String, Set<DayOfWeekEnum>> getAvailabilityChanges() {
+        return availabilityChanges;
+    }
+
+    public void setAvailabilityChanges(Map<String, Set<DayOfWeekEnum>> availabilityChanges) {
+        this.availabilityChanges = availabilityChanges;
+    }
+
+    public List<SubjectSession> getAddedSessions() {
+        return addedSessions;
+    }
+
+    public void setAddedSessions(List<SubjectSession> addedSessions) {
+        this.addedSessions = addedSessions;
+    }
+
+    public List<SubjectSession> getMovedSessions() {
+        return movedSessions;
+    }
+
+    public void setMovedSessions(List<SubjectSession> movedSessions) {
+        this.movedSessions = movedSessions;
+    }
+}
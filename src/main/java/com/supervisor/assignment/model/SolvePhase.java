@@ -0,0 +1,13 @@
+package com.supervisor.assignment.model;
+
+public enum SolvePhase {
+    FLOOR_SLOTS,       // building floor-supervisor slots
+    MAINTENANCE_SLOTS, // building daily maintenance slots
+    ELIGIBILITY,       // counting eligible supervisors and ordering slots
+    GREEDY,            // primaries, per role
+    BACKFILL,          // relaxed availability for open slots, per role
+    CONSOLIDATION,     // forced picks for sessions left empty, per role
+    BACKUPS,           // backups, per role
+    IMPROVEMENT,       // optional local search, per role
+    TOTALS             // per-supervisor totals
+}
@@ -0,0 +1,72 @@
+package com.supervisor.assignment.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where one engine call spent its time. Phase times and counters are those of the kept run, summed
+ * over its roles, which run concurrently, so they can add up to more than the elapsed time. The
+ * allRuns totals cover every multi-start run, discarded ones included.
+ */
+public class SolveStats {
+    // Bucket 0 counts empty candidate pools, bucket i > 0 pools of 2^(i-1) to 2^i - 1 supervisors
+    public static final int POOL_SIZE_BUCKETS = 16;
+
+    public static class PhaseStats {
+        private SolvePhase phase;
+        private double wallMillis;
+        private long allocatedBytes; // by the threads running the phase; -1 when the JVM cannot tell
+
+        public SolvePhase getPhase() { return phase; }
+        public void setPhase(SolvePhase phase) { this.phase = phase; }
+        public double getWallMillis() { return wallMillis; }
+        public void setWallMillis(double wallMillis) { this.wallMillis = wallMillis; }
+        public long getAllocatedBytes() { return allocatedBytes; }
+        public void setAllocatedBytes(long allocatedBytes) { this.allocatedBytes = allocatedBytes; }
+    }
+
+    private List<PhaseStats> phases = new ArrayList<>();
+    private double elapsedMillis;
+    private long slotsProcessed;
+    private long candidatesScanned;
+    private long relaxedAvailabilityFallbacks;
+    private long backfills;
+    private long autoBackfills;
+    private long[] candidatePoolSizes = new long[POOL_SIZE_BUCKETS];
+    private int runs = 1;
+    private long allRunsSlotsProcessed;
+    private long allRunsCandidatesScanned;
+
+    public List<PhaseStats> getPhases() { return phases; }
+    public double getElapsedMillis() { return elapsedMillis; }
+    public void setElapsedMillis(double elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+    public long getSlotsProcessed() { return slotsProcessed; }
+    public void setSlotsProcessed(long slotsProcessed) { this.slotsProcessed = slotsProcessed; }
+    public long getCandidatesScanned() { return candidatesScanned; }
+    public void setCandidatesScanned(long candidatesScanned) { this.candidatesScanned = candidatesScanned; }
+    public long getRelaxedAvailabilityFallbacks() { return relaxedAvailabilityFallbacks; }
+    public void setRelaxedAvailabilityFallbacks(long relaxedAvailabilityFallbacks) { this.relaxedAvailabilityFallbacks = relaxedAvailabilityFallbacks; }
+    public long getBackfills() { return backfills; }
+    public void setBackfills(long backfills) { this.backfills = backfills; }
+    public long getAutoBackfills() { return autoBackfills; }
+    public void setAutoBackfills(long autoBackfills) { this.autoBackfills = autoBackfills; }
+    public long[] getCandidatePoolSizes() { return candidatePoolSizes; }
+    public void setCandidatePoolSizes(long[] candidatePoolSizes) { this.candidatePoolSizes = candidatePoolSizes; }
+    public int getRuns() { return runs; }
+    public void setRuns(int runs) { this.runs = runs; }
+    public long getAllRunsSlotsProcessed() { return allRunsSlotsProcessed; }
+    public void setAllRunsSlotsProcessed(long allRunsSlotsProcessed) { this.allRunsSlotsProcessed = allRunsSlotsProcessed; }
+    public long getAllRunsCandidatesScanned() { return allRunsCandidatesScanned; }
+    public void setAllRunsCandidatesScanned(long allRunsCandidatesScanned) { this.allRunsCandidatesScanned = allRunsCandidatesScanned; }
+
+    public static int poolSizeBucket(int size) {
+        return Math.min(POOL_SIZE_BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(size));
+    }
+
+    public static String poolSizeLabel(int bucket) {
+        if (bucket == 0) return "0";
+        if (bucket == 1) return "1";
+        if (bucket == POOL_SIZE_BUCKETS - 1) return (1 << (bucket - 1)) + "+";
+        return (1 << (bucket - 1)) + "-" + ((1 << bucket) - 1);
+    }
+}
@@ -0,0 +1,6 @@
+package com.supervisor.assignment.model;
+
+public enum SolverMode {
+    GREEDY,       // one slot at a time, least-loaded first
+    MIN_COST_FLOW // each cluster of overlapping sessions as a min-cost max-flow
+}
@@ -0,0 +1,186 @@
+package com.supervisor.assignment.template;
+
+import com.supervisor.assignment.model.*;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Seeded inputs built in memory, for stress tests and benchmarks up to millions of sessions.
+ * The same settings and seed always give the same scenario. {@link #writeXlsx} streams a
+ * scenario out in the template layout when a file is needed.
+ */
+public class ScenarioGenerator {
+	private static final DayOfWeekEnum[] WORK_DAYS = {DayOfWeekEnum.SATURDAY, DayOfWeekEnum.SUNDAY, DayOfWeekEnum.MONDAY,
+		DayOfWeekEnum.TUESDAY, DayOfWeekEnum.WEDNESDAY, DayOfWeekEnum.THURSDAY};
+	private static final DayOfWeekEnum[] DAYS = DayOfWeekEnum.values();
+	private static final String[] ARABIC_DAYS = {"السبت", "الأحد", "الاثنين", "الثلاثاء", "الأربعاء", "الخميس", "الجمعة"};
+
+	public static class Scenario {
+		public final List<SubjectSession> sessions;
+		public final List<Supervisor> supervisors;
+
+		public Scenario(List<SubjectSession> sessions, List<Supervisor> supervisors) {
+			this.sessions = sessions;
+			this.supervisors = supervisors;
+		}
+	}
+
+	private int sessions = 300;
+	private int supervisors = 80;
+	private int subjects = 200;
+	private int buildings = 3;
+	private int sessionsPerDay = 60;
+	private double morningShare = 0.5;        // the rest are evening sessions
+	private double doubleStaffedShare = 0.25; // sessions needing two invigilators
+	private double partialLoadShare = 0.2;    // supervisors at 50% load
+	private double exclusionRate = 0.0;       // chance a supervisor excludes a given subject
+	private double availability = 0.8;        // chance a supervisor is available on a given work day
+	private double floorSupervisorShare = 0.05;
+	private double maintenanceShare = 0.02;
+	private long seed = 42L;
+	private LocalDate startDate = LocalDate.of(2025, 1, 4);
+
+	public Scenario generate() {
+		Random random = new Random(seed);
+		List<LocalDate> dates = new ArrayList<>();
+		int dateCount = Math.max(1, (sessions + sessionsPerDay - 1) / sessionsPerDay);
+		for (LocalDate d = startDate; dates.size() < dateCount; d = d.plusDays(1)) {
+			if (d.getDayOfWeek() != DayOfWeek.FRIDAY) dates.add(d);
+		}
+		String[] subjectNames = new String[subjects];
+		for (int k = 0; k < subjects; k++) subjectNames[k] = "مادة " + (k + 1);
+		String[] buildingNames = new String[buildings];
+		for (int b = 0; b < buildings; b++) buildingNames[b] = "المبنى " + (b + 1);
+		LocalTime[] hours = new LocalTime[24];
+		for (int h = 0; h < hours.length; h++) hours[h] = LocalTime.of(h, 0);
+
+		List<SubjectSession> sessionList = new ArrayList<>(sessions);
+		for (int i = 0; i < sessions; i++) {
+			LocalDate date = dates.get(random.nextInt(dates.size()));
+			boolean morning = random.nextDouble() < morningShare;
+			int from = morning ? 8 + random.nextInt(3) : 13 + random.nextInt(3);
+			SubjectSession s = new SubjectSession();
+			// Ids as the reader numbers the rows of an exported file: data starts on the third row
+			s.setId("S-" + (i + 2));
+			s.setSubjectName(subjectNames[random.nextInt(subjects)]);
+			s.setDate(date);
+			s.setDay(DAYS[(date.getDayOfWeek().getValue() + 1) % 7]); // Saturday first
+			s.setFrom(hours[from]);
+			// Morning sessions end by noon, so their 12-hour times read back in the same period
+			s.setTo(hours[from + 1 + random.nextInt(morning ? Math.min(3, 12 - from) : 3)]);
+			s.setSupervisorsRequired(random.nextDouble() < doubleStaffedShare ? 2 : 1);
+			s.setPeriod(morning ? PeriodOfDay.MORNING : PeriodOfDay.EVENING);
+			s.setBuilding(buildingNames[random.nextInt(buildings)]);
+			sessionList.add(s);
+		}
+
+		List<Supervisor> supervisorList = new ArrayList<>(supervisors);
+		for (int i = 0; i < supervisors; i++) {
+			Supervisor sup = new Supervisor();
+			sup.setName("مراقب " + (i + 1));
+			double role = random.nextDouble();
+			sup.setRole(role < floorSupervisorShare ? RoleType.FLOOR_SUPERVISOR
+				: role < floorSupervisorShare + maintenanceShare ? RoleType.MAINTENANCE : RoleType.INVIGILATOR);
+			Set<DayOfWeekEnum> days = EnumSet.noneOf(DayOfWeekEnum.class);
+			for (DayOfWeekEnum day : WORK_DAYS) if (random.nextDouble() < availability) days.add(day);
+			if (days.isEmpty()) days.add(WORK_DAYS[random.nextInt(WORK_DAYS.length)]);
+			sup.setAvailableDays(days);
+			sup.setLoadPercentage(random.nextDouble() < partialLoadShare ? 50.0 : 100.0);
+			Set<String> excluded = new HashSet<>();
+			if (exclusionRate > 0) {
+				for (String subject : subjectNames) if (random.nextDouble() < exclusionRate) excluded.add(subject);
+			}
+			sup.setExcludedSubjects(excluded);
+			supervisorList.add(sup);
+		}
+		return new Scenario(sessionList, supervisorList);
+	}
+
+	/** Writes the subjects and supervisors sheets with a bounded row window, so any size fits in memory. */
+	public void writeXlsx(Scenario scenario, File outFile) throws IOException {
+		SXSSFWorkbook wb = new SXSSFWorkbook(500);
+		try {
+			Sheet subjectsSheet = wb.createSheet("المواد");
+			subjectsSheet.setRightToLeft(true);
+			subjectsSheet.createRow(0).createCell(0).setCellValue("جلسات مولدة. الوقت بصيغة 12 ساعة.");
+			writeCells(subjectsSheet.createRow(1), "المعرف", "المادة", "المبنى", "الفترة", "اليوم", "التاريخ", "من", "إلى", "عدد_الملاحظين");
+			int r = 2;
+			for (SubjectSession s : scenario.sessions) {
+				Row row = subjectsSheet.createRow(r++);
+				writeCells(row, s.getId(), s.getSubjectName(), s.getBuilding(),
+					s.getPeriod() == PeriodOfDay.MORNING ? "صباحي" : "مسائي",
+					ARABIC_DAYS[s.getDay().ordinal()], s.getDate().toString(), time12h(s.getFrom()), time12h(s.getTo()));
+				row.createCell(8).setCellValue(s.getSupervisorsRequired());
+			}
+
+			Sheet supervisorsSheet = wb.createSheet("المراقبون");
+			supervisorsSheet.setRightToLeft(true);
+			supervisorsSheet.createRow(0).createCell(0).setCellValue("مراقبون مولدون.");
+			writeCells(supervisorsSheet.createRow(1), "الاسم", "الأيام المتاحة", "النسبة٪", "الوظيفة", "المواد المستبعدة");
+			r = 2;
+			for (Supervisor sup : scenario.supervisors) {
+				StringJoiner days = new StringJoiner(", ");
+				for (DayOfWeekEnum day : WORK_DAYS) if (sup.getAvailableDays().contains(day)) days.add(ARABIC_DAYS[day.ordinal()]);
+				String role = sup.getRole() == RoleType.FLOOR_SUPERVISOR ? "مشرف دور" : sup.getRole() == RoleType.MAINTENANCE ? "عامل" : "ملاحظ";
+				Row row = supervisorsSheet.createRow(r++);
+				writeCells(row, sup.getName(), days.toString());
+				row.createCell(2).setCellValue(sup.getLoadPercentage() == null ? 100.0 : sup.getLoadPercentage());
+				row.createCell(3).setCellValue(role);
+				row.createCell(4).setCellValue(String.join(", ", new TreeSet<>(sup.getExcludedSubjects())));
+			}
+			try (FileOutputStream fos = new FileOutputStream(outFile)) {
+				wb.write(fos);
+			}
+		} finally {
+			wb.dispose();
+			wb.close();
+		}
+	}
+
+	private static void writeCells(Row row, String... values) {
+		for (int c = 0; c < values.length; c++) row.createCell(c).setCellValue(values[c]);
+	}
+
+	private static String time12h(LocalTime t) {
+		int hour = t.getHour() % 12 == 0 ? 12 : t.getHour() % 12;
+		return String.format(Locale.ROOT, "%02d:%02d", hour, t.getMinute());
+	}
+
+	public int getSessions() { return sessions; }
+	public void setSessions(int sessions) { this.sessions = sessions; }
+	public int getSupervisors() { return supervisors; }
+	public void setSupervisors(int supervisors) { this.supervisors = supervisors; }
+	public int getSubjects() { return subjects; }
+	public void setSubjects(int subjects) { this.subjects = subjects; }
+	public int getBuildings() { return buildings; }
+	public void setBuildings(int buildings) { this.buildings = buildings; }
+	public int getSessionsPerDay() { return sessionsPerDay; }
+	public void setSessionsPerDay(int sessionsPerDay) { this.sessionsPerDay = sessionsPerDay; }
+	public double getMorningShare() { return morningShare; }
+	public void setMorningShare(double morningShare) { this.morningShare = morningShare; }
+	public double getDoubleStaffedShare() { return doubleStaffedShare; }
+	public void setDoubleStaffedShare(double doubleStaffedShare) { this.doubleStaffedShare = doubleStaffedShare; }
+	public double getPartialLoadShare() { return partialLoadShare; }
+	public void setPartialLoadShare(double partialLoadShare) { this.partialLoadShare = partialLoadShare; }
+	public double getExclusionRate() { return exclusionRate; }
+	public void setExclusionRate(double exclusionRate) { this.exclusionRate = exclusionRate; }
+	public double getAvailability() { return availability; }
+	public void setAvailability(double availability) { this.availability = availability; }
+	public double getFloorSupervisorShare() { return floorSupervisorShare; }
+	public void setFloorSupervisorShare(double floorSupervisorShare) { this.floorSupervisorShare = floorSupervisorShare; }
+	public double getMaintenanceShare() { return maintenanceShare; }
+	public void setMaintenanceShare(double maintenanceShare) { this.maintenanceShare = maintenanceShare; }
+	public long getSeed() { return seed; }
+	public void setSeed(long seed) { this.seed = seed; }
+	public LocalDate getStartDate() { return startDate; }
+	public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+}
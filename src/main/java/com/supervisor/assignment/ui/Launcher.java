@@ -1,8 +1,11 @@
 package com.supervisor.assignment.ui;
 
+import com.supervisor.assignment.io.ArabicText;
 import com.supervisor.assignment.io.ExcelReaderWriter;
+import com.supervisor.assignment.io.WorkbookPipeline;
 import com.supervisor.assignment.logic.AssignmentEngine;
 import com.supervisor.assignment.model.*;
+import com.supervisor.assignment.template.ScenarioGenerator;
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.geometry.NodeOrientation;
@@ -212,19 +215,17 @@ public class Launcher extends Application {
 			return;
 		}
 		try {
-			ExcelReaderWriter rw = new ExcelReaderWriter();
-			ExcelReaderWriter.ParsedInput pi = rw.readWorkbook(inFile);
-			Config cfg = pi.config;
-			cfg.setSchedulingMode(rbConsecutive.isSelected() ? SchedulingMode.CONSECUTIVE : rbBreak.isSelected() ? SchedulingMode.BREAK : SchedulingMode.MIXED);
-			AssignmentEngine engine = new AssignmentEngine();
-			lastResult = engine.assign(pi.sessions, pi.supervisors, cfg);
-
-			File out = suggestOutput(inFile);
-			if (cbExcel.isSelected()) {
-				File xlsx = new File(out.getParentFile(), addSuffix(out.getName(), "_مع_التعيينات.xlsx"));
-				rw.writeOutput(inFile, xlsx, lastResult);
+			try (WorkbookPipeline pipeline = new WorkbookPipeline(inFile)) {
+				File out = suggestOutput(inFile);
+				if (cbExcel.isSelected()) {
+					pipeline.setXlsxOutput(new File(out.getParentFile(), addSuffix(out.getName(), "_مع_التعيينات.xlsx")));
+				}
+				// PDF export removed per requirements
+				Config cfg = pipeline.read().config;
+				cfg.setSchedulingMode(rbConsecutive.isSelected() ? SchedulingMode.CONSECUTIVE : rbBreak.isSelected() ? SchedulingMode.BREAK : SchedulingMode.MIXED);
+				lastResult = pipeline.solve(new AssignmentEngine());
+				pipeline.write(lastResult);
 			}
-			// PDF export removed per requirements
 
 			long assigned = lastResult.getSessionAssignments().stream().filter(a -> "Assigned".equals(a.getStatus())).count();
 			long partial = lastResult.getSessionAssignments().stream().filter(a -> "PartiallyAssigned".equals(a.getStatus())).count();
@@ -328,10 +329,16 @@ public class Launcher extends Application {
 		try {
 			File example = findExampleInput();
 			if (example == null || !example.exists()) {
-				alert("لم يتم العثور على ملف المثال input_large_A.xlsx");
-				return;
+				// No prebuilt example next to the app: generate one of the same size
+				ScenarioGenerator generator = new ScenarioGenerator();
+				generator.setSessions(300);
+				generator.setSupervisors(80);
+				generator.setSubjects(25);
+				generator.setExclusionRate(0.02);
+				generator.writeXlsx(generator.generate(), out);
+			} else {
+				java.nio.file.Files.copy(example.toPath(), out.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
 			}
-			java.nio.file.Files.copy(example.toPath(), out.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
 			alert("تم حفظ المثال: " + out.getAbsolutePath());
 		} catch (Exception ex) {
 			ex.printStackTrace();
@@ -432,8 +439,8 @@ public class Launcher extends Application {
 	}
 
 	private boolean fuzzyMatch(String text, String pattern) {
-		String a = normalizeArabic(text);
-		String b = normalizeArabic(pattern);
+		String a = ArabicText.normalize(text);
+		String b = ArabicText.normalize(pattern);
 		int ti = 0, pi = 0;
 		while (ti < a.length() && pi < b.length()) {
 			char tc = a.charAt(ti);
@@ -444,20 +451,6 @@ public class Launcher extends Application {
 		return pi == b.length();
 	}
 
-	private String normalizeArabic(String s) {
-		if (s == null) return "";
-		String t = s.toLowerCase(java.util.Locale.ROOT);
-		// unify Arabic characters
-		t = t.replace('\u0623', '\u0627') // أ -> ا
-			.replace('\u0625', '\u0627') // إ -> ا
-			.replace('\u0622', '\u0627') // آ -> ا
-			.replace('\u0649', '\u064a') // ى -> ي
-			.replace('\u0629', '\u0647'); // ة -> ه
-		// remove tatweel and diacritics if any
-		t = t.replace("\u0640", "");
-		return t;
-	}
-
 	private File suggestOutput(File input) {
 		String name = input.getName();
 		int dot = name.lastIndexOf('.');
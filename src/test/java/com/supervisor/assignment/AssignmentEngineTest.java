@@ -1,12 +1,15 @@
 package com.supervisor.assignment;
 
 import com.supervisor.assignment.logic.AssignmentEngine;
+import com.supervisor.assignment.logic.CancellationToken;
 import com.supervisor.assignment.model.*;
+import com.supervisor.assignment.template.ScenarioGenerator;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -88,6 +91,454 @@ public class AssignmentEngineTest {
         }
     }
 
+    @Test
+    public void excludedSubjectGoesToAnotherSupervisor() {
+        List<SubjectSession> sessions = new ArrayList<>();
+        sessions.add(makeSession("S1", "Math", DayOfWeekEnum.SATURDAY, "08:00", "10:00", 1));
+
+        List<Supervisor> supervisors = new ArrayList<>();
+        Supervisor a = makeSupervisor("A", DayOfWeekEnum.SATURDAY);
+        a.setExcludedSubjects(new HashSet<>(Collections.singletonList("Math")));
+        supervisors.add(a);
+        supervisors.add(makeSupervisor("B", DayOfWeekEnum.SATURDAY));
+
+        AssignmentResult result = new AssignmentEngine().assign(sessions, supervisors, new Config());
+
+        assertEquals(Collections.singletonList("B"), result.getSessionAssignments().get(0).getAssignedSupervisors());
+        AssignmentResult.SupervisorTotals b = result.getSupervisorTotals().get(1);
+        assertEquals(2.0, b.getPrimaryHours(), 1e-9);
+        assertEquals(1, b.getSessionsCount());
+    }
+
+    @Test
+    public void minCostFlowModeCoversOverlappingSessionsWithoutExcludedSubjects() {
+        List<SubjectSession> sessions = new ArrayList<>();
+        sessions.add(makeSession("S1", "Math", DayOfWeekEnum.SATURDAY, "08:00", "10:00", 2));
+        sessions.add(makeSession("S2", "Physics", DayOfWeekEnum.SATURDAY, "08:00", "10:00", 1));
+
+        List<Supervisor> supervisors = new ArrayList<>();
+        Supervisor a = makeSupervisor("A", DayOfWeekEnum.SATURDAY);
+        a.setExcludedSubjects(new HashSet<>(Collections.singletonList("Math")));
+        supervisors.add(a);
+        supervisors.add(makeSupervisor("B", DayOfWeekEnum.SATURDAY));
+        supervisors.add(makeSupervisor("C", DayOfWeekEnum.SATURDAY));
+
+        Config config = new Config();
+        config.setSolverMode(SolverMode.MIN_COST_FLOW);
+        AssignmentResult result = new AssignmentEngine().assign(sessions, supervisors, config);
+
+        AssignmentResult.SessionAssignment math = result.getSessionAssignments().get(0);
+        assertEquals("Assigned", math.getStatus());
+        assertEquals(new HashSet<>(Arrays.asList("B", "C")), new HashSet<>(math.getAssignedSupervisors()));
+        assertEquals(Collections.singletonList("A"), result.getSessionAssignments().get(1).getAssignedSupervisors());
+    }
+
+    @Test
+    public void repairPromotesBackupOfAbsentSupervisorAndKeepsTheRest() {
+        List<SubjectSession> sessions = new ArrayList<>();
+        SubjectSession math = makeSessionWithDate("S1", "Math", DayOfWeekEnum.SATURDAY, LocalDate.of(2025, 1, 4), "08:00", "10:00", 1);
+        math.setPeriod(PeriodOfDay.MORNING);
+        sessions.add(math);
+        sessions.add(makeSession("S2", "Physics", DayOfWeekEnum.SUNDAY, "08:00", "10:00", 1));
+
+        // D alone works on Sunday, so Physics never involves whoever is absent on Saturday
+        List<Supervisor> supervisors = new ArrayList<>();
+        supervisors.add(makeSupervisor("A", DayOfWeekEnum.SATURDAY));
+        supervisors.add(makeSupervisor("B", DayOfWeekEnum.SATURDAY));
+        supervisors.add(makeSupervisor("C", DayOfWeekEnum.SATURDAY));
+        supervisors.add(makeSupervisor("D", DayOfWeekEnum.SUNDAY));
+
+        AssignmentEngine engine = new AssignmentEngine();
+        AssignmentResult previous = engine.assign(sessions, supervisors, new Config());
+        assertEquals(Collections.singletonList("D"), previous.getSessionAssignments().get(1).getAssignedSupervisors());
+        String absent = previous.getSessionAssignments().get(0).getAssignedSupervisors().get(0);
+        String backup = previous.getBackupAssignments().get(0).getSupervisor();
+
+        RepairDelta delta = new RepairDelta();
+        delta.getRemovedSupervisors().add(absent);
+        AssignmentResult repaired = engine.repair(previous, sessions, supervisors, new Config(), delta);
+
+        assertEquals(Collections.singletonList(backup), repaired.getSessionAssignments().get(0).getAssignedSupervisors());
+        assertEquals("Assigned", repaired.getSessionAssignments().get(0).getStatus());
+        assertEquals(1, repaired.getBackupAssignments().size());
+        assertNotEquals(absent, repaired.getBackupAssignments().get(0).getSupervisor());
+        assertNotEquals(backup, repaired.getBackupAssignments().get(0).getSupervisor());
+        assertEquals(3, repaired.getSupervisorTotals().size());
+        assertEquals(Collections.singletonList("D"), repaired.getSessionAssignments().get(1).getAssignedSupervisors());
+    }
+
+    @Test
+    public void warmStartKeepsManualOverrideAndSolvesTheRest() {
+        List<SubjectSession> sessions = new ArrayList<>();
+        sessions.add(makeSession("S1", "Math", DayOfWeekEnum.SATURDAY, "08:00", "10:00", 1));
+        sessions.add(makeSession("S2", "Physics", DayOfWeekEnum.SATURDAY, "08:00", "10:00", 1));
+
+        List<Supervisor> supervisors = new ArrayList<>();
+        supervisors.add(makeSupervisor("A", DayOfWeekEnum.SATURDAY));
+        supervisors.add(makeSupervisor("B", DayOfWeekEnum.SATURDAY));
+        supervisors.add(makeSupervisor("C", DayOfWeekEnum.SATURDAY));
+
+        AssignmentResult seed = new AssignmentResult();
+        AssignmentResult.SessionAssignment manual = new AssignmentResult.SessionAssignment();
+        manual.setSession(sessions.get(0));
+        manual.setAssignedSupervisors(new ArrayList<>(Collections.singletonList("C")));
+        seed.getSessionAssignments().add(manual);
+
+        Config config = new Config();
+        config.setPreserveManualOverrides(true);
+        AssignmentResult result = new AssignmentEngine().assign(sessions, supervisors, config, seed);
+
+        assertEquals(Collections.singletonList("C"), result.getSessionAssignments().get(0).getAssignedSupervisors());
+        assertEquals("Assigned", result.getSessionAssignments().get(1).getStatus());
+        assertFalse(result.getSessionAssignments().get(1).getAssignedSupervisors().contains("C"));
+    }
+
+    @Test
+    public void offGridTimesAreNotTreatedAsOverlapping() {
+        List<SubjectSession> sessions = new ArrayList<>();
+        sessions.add(makeSession("S1", "Math", DayOfWeekEnum.SATURDAY, "08:00", "09:15", 1));
+        sessions.add(makeSession("S2", "Physics", DayOfWeekEnum.SATURDAY, "09:15", "10:00", 1));
+
+        List<Supervisor> supervisors = new ArrayList<>();
+        supervisors.add(makeSupervisor("A", DayOfWeekEnum.SATURDAY));
+
+        AssignmentResult result = new AssignmentEngine().assign(sessions, supervisors, new Config());
+
+        for (AssignmentResult.SessionAssignment sa : result.getSessionAssignments()) {
+            assertEquals("Assigned", sa.getStatus());
+        }
+        AssignmentResult.SupervisorTotals a = result.getSupervisorTotals().get(0);
+        assertEquals(2.0, a.getPrimaryHours(), 1e-9);
+        assertEquals(2.0, a.getPerDayHours().values().stream().mapToDouble(Double::doubleValue).sum(), 1e-9);
+    }
+
+    @Test
+    public void dateBlocksCoverEverySessionWithinConsecutiveDaysLimit() {
+        List<SubjectSession> sessions = new ArrayList<>();
+        LocalDate sat = next(java.time.DayOfWeek.SATURDAY);
+        for (int i = 0; i < 12; i++) {
+            LocalDate date = sat.plusDays(i);
+            sessions.add(makeSessionWithDate("S" + i, "Sub" + i, dayOf(date), date, "08:00", "10:00", 1));
+        }
+
+        List<Supervisor> supervisors = new ArrayList<>();
+        for (String name : Arrays.asList("A", "B", "C")) supervisors.add(makeSupervisor(name, DayOfWeekEnum.values()));
+
+        Config config = new Config();
+        config.setDateBlocks(3);
+        AssignmentResult result = new AssignmentEngine().assign(sessions, supervisors, config);
+
+        Map<String, Set<LocalDate>> dates = new HashMap<>();
+        for (AssignmentResult.SessionAssignment sa : result.getSessionAssignments()) {
+            assertEquals("Assigned", sa.getStatus());
+            for (String name : sa.getAssignedSupervisors()) dates.computeIfAbsent(name, k -> new HashSet<>()).add(sa.getSession().getDate());
+        }
+        for (Map.Entry<String, Set<LocalDate>> e : dates.entrySet()) {
+            for (LocalDate d : e.getValue()) {
+                boolean run = e.getValue().contains(d.plusDays(1)) && e.getValue().contains(d.plusDays(2));
+                assertFalse(run, "Supervisor assigned 3 consecutive days: " + e.getKey());
+            }
+        }
+    }
+
+    @Test
+    public void dateBlocksStayWithinTheStatedToleranceOfTheSequentialSolve() {
+        // Fifteen exam dates, three weeks of work days
+        for (long seed = 1; seed <= 4; seed++) {
+            ScenarioGenerator generator = new ScenarioGenerator();
+            generator.setSeed(seed);
+            generator.setSessions(600);
+            generator.setSupervisors(120);
+            generator.setSessionsPerDay(40);
+            generator.setExclusionRate(0.05);
+            ScenarioGenerator.Scenario scenario = generator.generate();
+
+            AssignmentResult sequential = new AssignmentEngine().assign(scenario.sessions, scenario.supervisors, new Config());
+            Config config = new Config();
+            config.setDateBlocks(4);
+            AssignmentResult blocks = new AssignmentEngine().assign(scenario.sessions, scenario.supervisors, config);
+
+            // The tolerance documented on Config.dateBlocks
+            for (RoleType role : RoleType.values()) {
+                assertTrue(loadRatioSpread(blocks, role) <= loadRatioSpread(sequential, role) + 0.1,
+                    "seed " + seed + " " + role + ": " + loadRatioSpread(blocks, role) + " vs " + loadRatioSpread(sequential, role));
+            }
+            assertTrue(notAssigned(blocks) <= notAssigned(sequential) + 0.02 * scenario.sessions.size(),
+                "seed " + seed + ": " + notAssigned(blocks) + " vs " + notAssigned(sequential));
+        }
+    }
+
+    @Test
+    public void parallelRoleSolveMatchesRoleByRoleOnOneThread() throws Exception {
+        ScenarioGenerator.Scenario scenario = multiRoleScenario();
+        // With one worker the role tasks run one after another on the calling thread
+        List<String> parallel = describe(solveOn(new ForkJoinPool(4), scenario));
+        List<String> sequential = describe(solveOn(new ForkJoinPool(1), scenario));
+        assertEquals(sequential, parallel);
+        for (RoleType role : RoleType.values()) {
+            assertTrue(parallel.stream().anyMatch(line -> line.contains(" " + role + " ")), "no " + role + " assignments");
+        }
+    }
+
+    @Test
+    public void supervisorTotalsMatchTheAssignmentLists() {
+        ScenarioGenerator.Scenario scenario = multiRoleScenario();
+        AssignmentResult result = new AssignmentEngine().assign(scenario.sessions, scenario.supervisors, new Config());
+        Map<String, SubjectSession> byId = new HashMap<>();
+        Map<String, double[]> expected = new HashMap<>(); // primary hours, backup hours, sessions, then hours per day
+        for (AssignmentResult.SessionAssignment sa : result.getSessionAssignments()) {
+            SubjectSession session = sa.getSession();
+            byId.put(session.getId(), session);
+            for (String name : sa.getAssignedSupervisors()) {
+                double[] e = expected.computeIfAbsent(name, k -> new double[3 + 7]);
+                e[0] += hours(session);
+                e[2]++;
+                e[3 + dayOf(session.getDate()).ordinal()] += hours(session);
+            }
+        }
+        for (AssignmentResult.BackupAssignment ba : result.getBackupAssignments()) {
+            SubjectSession session = byId.get(ba.getSessionId());
+            double[] e = expected.computeIfAbsent(ba.getSupervisor(), k -> new double[3 + 7]);
+            e[1] += hours(session);
+            e[2]++;
+            e[3 + dayOf(session.getDate()).ordinal()] += hours(session);
+        }
+
+        assertFalse(result.getBackupAssignments().isEmpty());
+        for (AssignmentResult.SupervisorTotals t : result.getSupervisorTotals()) {
+            double[] e = expected.getOrDefault(t.getSupervisor(), new double[3 + 7]);
+            assertEquals(e[0], t.getPrimaryHours(), 1e-9, t.getSupervisor());
+            assertEquals(e[1], t.getBackupHours(), 1e-9, t.getSupervisor());
+            assertEquals(e[0] + e[1], t.getTotalHours(), 1e-9, t.getSupervisor());
+            assertEquals(e[0] + e[1] - t.getExpectedHours(), t.getDeviationFromTarget(), 1e-9, t.getSupervisor());
+            assertEquals((int) e[2], t.getSessionsCount(), t.getSupervisor());
+            Map<DayOfWeekEnum, Double> perDay = new EnumMap<>(DayOfWeekEnum.class);
+            for (DayOfWeekEnum day : DayOfWeekEnum.values()) {
+                if (e[3 + day.ordinal()] > 0) perDay.put(day, e[3 + day.ordinal()]);
+            }
+            assertEquals(perDay.keySet(), t.getPerDayHours().keySet(), t.getSupervisor());
+            for (DayOfWeekEnum day : perDay.keySet()) assertEquals(perDay.get(day), t.getPerDayHours().get(day), 1e-9, t.getSupervisor());
+        }
+    }
+
+    @Test
+    public void improvementPhaseKeepsCoverageAndReportsObjective() {
+        List<SubjectSession> sessions = new ArrayList<>();
+        sessions.add(makeSession("S1", "Math", DayOfWeekEnum.SATURDAY, "08:00", "12:00", 1));
+        sessions.add(makeSession("S2", "Physics", DayOfWeekEnum.SATURDAY, "12:00", "13:00", 1));
+        sessions.add(makeSession("S3", "Chem", DayOfWeekEnum.SATURDAY, "13:00", "14:00", 1));
+
+        List<Supervisor> supervisors = new ArrayList<>();
+        supervisors.add(makeSupervisor("A", DayOfWeekEnum.SATURDAY));
+        supervisors.add(makeSupervisor("B", DayOfWeekEnum.SATURDAY));
+
+        Config config = new Config();
+        config.setImprovementMillis(200);
+        AssignmentResult result = new AssignmentEngine().assign(sessions, supervisors, config);
+
+        for (AssignmentResult.SessionAssignment sa : result.getSessionAssignments()) {
+            assertEquals("Assigned", sa.getStatus());
+        }
+        AssignmentResult.ImprovementSummary summary = result.getImprovement();
+        assertNotNull(summary);
+        assertEquals(0, summary.getUnfilledSlotsAfter());
+        assertTrue(summary.getSquaredDeviationAfter() <= summary.getSquaredDeviationBefore());
+        assertNull(new AssignmentEngine().assign(sessions, supervisors, new Config()).getImprovement());
+    }
+
+    @Test
+    public void improvementNeverMovesADisplacedPrimaryToAnExcludedSupervisor() {
+        List<SubjectSession> sessions = new ArrayList<>();
+        sessions.add(makeSession("S1", "Math", DayOfWeekEnum.SATURDAY, "08:00", "10:00", 1));
+        sessions.add(makeSession("S2", "Physics", DayOfWeekEnum.SATURDAY, "10:00", "12:00", 1));
+        sessions.add(makeSession("S3", "Chem", DayOfWeekEnum.SATURDAY, "09:30", "10:30", 1));
+
+        List<Supervisor> supervisors = new ArrayList<>();
+        Supervisor a = makeSupervisor("A", DayOfWeekEnum.SATURDAY);
+        a.setExcludedSubjects(new HashSet<>(Collections.singletonList("Physics")));
+        supervisors.add(a);
+        Supervisor b = makeSupervisor("B", DayOfWeekEnum.SATURDAY);
+        b.setExcludedSubjects(new HashSet<>(Collections.singletonList("Math")));
+        supervisors.add(b);
+
+        Config config = new Config();
+        config.setImprovementMillis(200);
+        AssignmentResult result = new AssignmentEngine().assign(sessions, supervisors, config);
+
+        // Chem overlaps both bookings; B is the only one free for Math if A moved to Chem, but excludes it
+        assertEquals(Collections.singletonList("A"), result.getSessionAssignments().get(0).getAssignedSupervisors());
+        assertEquals(Collections.singletonList("B"), result.getSessionAssignments().get(1).getAssignedSupervisors());
+        assertEquals("Unassigned", result.getSessionAssignments().get(2).getStatus());
+    }
+
+    @Test
+    public void multiStartKeepsBestRunAndItsSeedReproducesIt() {
+        List<SubjectSession> sessions = new ArrayList<>();
+        String[][] times = {{"08:00", "10:00"}, {"09:00", "11:00"}, {"10:00", "12:00"}, {"11:00", "13:00"}};
+        for (int i = 0; i < 12; i++) {
+            String[] t = times[i % times.length];
+            sessions.add(makeSession("S" + i, "Sub" + i, i % 2 == 0 ? DayOfWeekEnum.SATURDAY : DayOfWeekEnum.SUNDAY, t[0], t[1], 1 + i % 2));
+        }
+        List<Supervisor> supervisors = new ArrayList<>();
+        for (int i = 0; i < 6; i++) supervisors.add(makeSupervisor("Sup" + i, i % 3 == 0 ? DayOfWeekEnum.SATURDAY : DayOfWeekEnum.SUNDAY));
+
+        AssignmentResult single = new AssignmentEngine().assign(sessions, supervisors, new Config());
+        Config multi = new Config();
+        multi.setMultiStartRuns(8);
+        multi.setRandomSeed(42L);
+        AssignmentResult best = new AssignmentEngine().assign(sessions, supervisors, multi);
+        assertNotNull(best.getSeed());
+        assertTrue(notAssigned(best) <= notAssigned(single));
+
+        Config replay = new Config();
+        replay.setRandomSeed(best.getSeed());
+        AssignmentResult again = new AssignmentEngine().assign(sessions, supervisors, replay);
+        for (int i = 0; i < sessions.size(); i++) {
+            assertEquals(best.getSessionAssignments().get(i).getAssignedSupervisors(), again.getSessionAssignments().get(i).getAssignedSupervisors());
+        }
+
+        // Counters describe the kept run alone; the discarded runs only show in the allRuns totals
+        SolveStats kept = best.getSolveStats();
+        assertEquals(again.getSolveStats().getSlotsProcessed(), kept.getSlotsProcessed());
+        assertEquals(again.getSolveStats().getCandidatesScanned(), kept.getCandidatesScanned());
+        assertEquals(8, kept.getRuns());
+        assertTrue(kept.getAllRunsSlotsProcessed() > kept.getSlotsProcessed());
+        assertEquals(1, again.getSolveStats().getRuns());
+    }
+
+    @Test
+    public void cancelledSolveReportsPhasesAndReturnsPartialResult() {
+        List<SubjectSession> sessions = new ArrayList<>();
+        sessions.add(makeSession("S1", "Math", DayOfWeekEnum.SATURDAY, "08:00", "10:00", 2));
+        List<Supervisor> supervisors = new ArrayList<>();
+        supervisors.add(makeSupervisor("A", DayOfWeekEnum.SATURDAY));
+
+        List<SolvePhase> phases = new ArrayList<>();
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        AssignmentEngine engine = new AssignmentEngine();
+        engine.setProgressListener((phase, role, slots) -> phases.add(phase));
+        engine.setCancellationToken(token);
+        AssignmentResult result = engine.assign(sessions, supervisors, new Config());
+
+        assertTrue(result.isStoppedEarly());
+        assertEquals(SolvePhase.FLOOR_SLOTS, phases.get(0));
+        assertEquals(SolvePhase.TOTALS, phases.get(phases.size() - 1));
+        assertFalse(phases.contains(SolvePhase.BACKUPS));
+        AssignmentResult.SessionAssignment sa = result.getSessionAssignments().get(0);
+        assertEquals(Collections.singletonList("A"), sa.getAssignedSupervisors());
+        assertNotEquals("Assigned", sa.getStatus());
+
+        assertFalse(new AssignmentEngine().assign(sessions, supervisors, new Config()).isStoppedEarly());
+    }
+
+    @Test
+    public void solveStatsCountPhasesAndRelaxedFallbacks() {
+        List<SubjectSession> sessions = new ArrayList<>();
+        sessions.add(makeSession("S1", "Math", DayOfWeekEnum.SATURDAY, "08:00", "10:00", 1));
+        sessions.add(makeSession("S2", "Physics", DayOfWeekEnum.SUNDAY, "08:00", "10:00", 1));
+        List<Supervisor> supervisors = new ArrayList<>();
+        supervisors.add(makeSupervisor("A", DayOfWeekEnum.SATURDAY));
+
+        SolveStats stats = new AssignmentEngine().assign(sessions, supervisors, new Config()).getSolveStats();
+
+        assertNotNull(stats);
+        List<SolvePhase> phases = new ArrayList<>();
+        for (SolveStats.PhaseStats ps : stats.getPhases()) phases.add(ps.getPhase());
+        assertTrue(phases.containsAll(Arrays.asList(SolvePhase.ELIGIBILITY, SolvePhase.GREEDY, SolvePhase.BACKUPS, SolvePhase.TOTALS)));
+        assertTrue(stats.getRelaxedAvailabilityFallbacks() >= 1);
+        assertEquals(0, stats.getAutoBackfills());
+        assertTrue(stats.getSlotsProcessed() >= 2);
+        assertEquals(2, Arrays.stream(stats.getCandidatePoolSizes()).sum());
+        assertEquals(stats.getRelaxedAvailabilityFallbacks(), stats.getCandidatePoolSizes()[0]);
+    }
+
+    @Test
+    public void flightRecordingHasPhaseAndSampledSlotEvents() throws Exception {
+        List<SubjectSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) sessions.add(makeSession("S" + i, "Sub" + i, DayOfWeekEnum.SATURDAY, "08:00", "09:00", 1));
+        List<Supervisor> supervisors = new ArrayList<>();
+        for (int i = 0; i < 100; i++) supervisors.add(makeSupervisor("Sup" + i, DayOfWeekEnum.SATURDAY));
+
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("assign", ".jfr");
+        try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+            recording.enable("com.supervisor.assignment.Phase");
+            recording.enable("com.supervisor.assignment.SlotDecision");
+            recording.start();
+            new AssignmentEngine().assign(sessions, supervisors, new Config());
+            recording.stop();
+            recording.dump(file);
+        }
+        List<jdk.jfr.consumer.RecordedEvent> events = jdk.jfr.consumer.RecordingFile.readAllEvents(file);
+        java.nio.file.Files.delete(file);
+
+        Set<String> phases = new HashSet<>();
+        int decisions = 0;
+        for (jdk.jfr.consumer.RecordedEvent e : events) {
+            if (e.getEventType().getName().equals("com.supervisor.assignment.Phase")) phases.add(e.getString("phase"));
+            if (e.getEventType().getName().equals("com.supervisor.assignment.SlotDecision")) {
+                decisions++;
+                assertEquals("INVIGILATOR", e.getString("role"));
+            }
+        }
+        assertTrue(phases.containsAll(Arrays.asList("FLOOR_SLOTS", "GREEDY", "BACKUPS", "TOTALS")));
+        assertEquals(2, decisions);
+    }
+
+    private static long notAssigned(AssignmentResult result) {
+        return result.getSessionAssignments().stream().filter(a -> !"Assigned".equals(a.getStatus())).count();
+    }
+
+    private static ScenarioGenerator.Scenario multiRoleScenario() {
+        ScenarioGenerator generator = new ScenarioGenerator();
+        generator.setSessions(400);
+        generator.setSupervisors(90);
+        generator.setFloorSupervisorShare(0.1);
+        generator.setMaintenanceShare(0.05);
+        return generator.generate();
+    }
+
+    private static AssignmentResult solveOn(ForkJoinPool pool, ScenarioGenerator.Scenario scenario) throws Exception {
+        try {
+            return pool.submit(() -> new AssignmentEngine().assign(scenario.sessions, scenario.supervisors, new Config())).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Every session, backup and total line in result order
+    private static List<String> describe(AssignmentResult result) {
+        List<String> lines = new ArrayList<>();
+        for (AssignmentResult.SessionAssignment sa : result.getSessionAssignments()) {
+            lines.add("session " + sa.getSession().getId() + " " + sa.getSession().getRequiredRole() + " " + sa.getAssignedSupervisors()
+                + " " + sa.getStatus() + " " + sa.getReason());
+        }
+        for (AssignmentResult.BackupAssignment ba : result.getBackupAssignments()) {
+            lines.add("backup " + ba.getSessionId() + " " + ba.getRole() + " " + ba.getSupervisor() + " " + ba.getDate() + " "
+                + ba.getPeriod() + " " + ba.getBuilding());
+        }
+        for (AssignmentResult.SupervisorTotals t : result.getSupervisorTotals()) {
+            lines.add("totals " + t.getSupervisor() + " " + t.getPrimaryHours() + " " + t.getBackupHours() + " " + t.getSessionsCount()
+                + " " + t.getPerDayHours());
+        }
+        return lines;
+    }
+
+    private static double hours(SubjectSession session) {
+        return java.time.Duration.between(session.getFrom(), session.getTo()).toMinutes() / 60.0;
+    }
+
+    // Highest minus lowest primary hours over expected hours among the role's supervisors
+    private static double loadRatioSpread(AssignmentResult result, RoleType role) {
+        double max = 0, min = Double.MAX_VALUE;
+        for (AssignmentResult.SupervisorTotals t : result.getSupervisorTotals()) {
+            if (t.getRole() != role || t.getExpectedHours() <= 0) continue;
+            max = Math.max(max, t.getPrimaryHours() / t.getExpectedHours());
+            min = Math.min(min, t.getPrimaryHours() / t.getExpectedHours());
+        }
+        return min > max ? 0 : max - min;
+    }
+
     private SubjectSession makeSession(String id, String name, DayOfWeekEnum day, String from, String to, int req) {
         SubjectSession s = new SubjectSession();
         s.setId(id);
@@ -113,6 +564,18 @@ public class AssignmentEngineTest {
         return s;
     }
 
+    private static DayOfWeekEnum dayOf(LocalDate date) {
+        switch (date.getDayOfWeek()) {
+            case SATURDAY: return DayOfWeekEnum.SATURDAY;
+            case SUNDAY: return DayOfWeekEnum.SUNDAY;
+            case MONDAY: return DayOfWeekEnum.MONDAY;
+            case TUESDAY: return DayOfWeekEnum.TUESDAY;
+            case WEDNESDAY: return DayOfWeekEnum.WEDNESDAY;
+            case THURSDAY: return DayOfWeekEnum.THURSDAY;
+            default: return DayOfWeekEnum.FRIDAY;
+        }
+    }
+
     private static LocalDate next(java.time.DayOfWeek dow) {
         LocalDate d = LocalDate.now();
         while (d.getDayOfWeek() != dow) d = d.plusDays(1);
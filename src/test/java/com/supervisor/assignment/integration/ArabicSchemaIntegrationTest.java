@@ -7,6 +7,7 @@ import com.supervisor.assignment.model.Config;
 import com.supervisor.assignment.template.TemplateGenerator;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Test;
 
@@ -76,6 +77,31 @@ public class ArabicSchemaIntegrationTest {
             assertNotNull(backups, "Missing الاحتياط sheet");
             Row bHeader = backups.getRow(0);
             assertEquals("الفترة", bHeader.getCell(2).getStringCellValue());
+
+            assertTrue(((XSSFSheet) assigns).isRightToLeft());
+            assertTrue(((XSSFSheet) schedules).isRightToLeft());
+            assertEquals(result.getSupervisorTotals().size(), schedules.getNumMergedRegions());
+        }
+
+        // Writing over an earlier output rebuilds its sheets where they were and appends to Logs
+        File rerunXlsx = new File(outDir, "output_arabic_small_rerun.xlsx");
+        rw.writeOutput(outXlsx, rerunXlsx, result);
+        try (FileInputStream first = new FileInputStream(outXlsx); XSSFWorkbook before = new XSSFWorkbook(first);
+             FileInputStream second = new FileInputStream(rerunXlsx); XSSFWorkbook after = new XSSFWorkbook(second)) {
+            assertEquals(before.getNumberOfSheets(), after.getNumberOfSheets());
+            for (int i = 0; i < before.getNumberOfSheets(); i++) {
+                assertEquals(before.getSheetName(i), after.getSheetName(i));
+            }
+            Sheet schedules = after.getSheet("جداول المراقبين");
+            assertEquals(before.getSheet("جداول المراقبين").getLastRowNum(), schedules.getLastRowNum());
+            assertEquals(result.getSupervisorTotals().size(), schedules.getNumMergedRegions());
+            assertTrue(after.getSheet("Logs").getLastRowNum() > before.getSheet("Logs").getLastRowNum());
+            assertTrue(after.getSheet("Solve Stats").getLastRowNum() > before.getSheet("Solve Stats").getLastRowNum());
+            // Logs holds one row per run; the stats live on their own sheet
+            for (Row logRow : after.getSheet("Logs")) {
+                String label = logRow.getCell(0).getStringCellValue();
+                assertTrue(label.equals("Timestamp") || label.isEmpty() || Character.isDigit(label.charAt(0)), label);
+            }
         }
     }
 
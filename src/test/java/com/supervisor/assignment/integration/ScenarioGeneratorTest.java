@@ -0,0 +1,54 @@
+package com.supervisor.assignment.integration;
+
+import com.supervisor.assignment.io.ExcelReaderWriter;
+import com.supervisor.assignment.model.SubjectSession;
+import com.supervisor.assignment.model.Supervisor;
+import com.supervisor.assignment.template.ScenarioGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ScenarioGeneratorTest {
+
+	@Test
+	public void sameSeedGivesSameScenarioAndExportReadsBackUnchanged() throws Exception {
+		ScenarioGenerator generator = new ScenarioGenerator();
+		generator.setSessions(500);
+		generator.setSupervisors(120);
+		generator.setExclusionRate(0.05);
+		ScenarioGenerator.Scenario scenario = generator.generate();
+		ScenarioGenerator.Scenario again = generator.generate();
+		assertEquals(describeSessions(scenario), describeSessions(again));
+		assertEquals(describeSupervisors(scenario), describeSupervisors(again));
+
+		File outDir = new File("target/test-excels");
+		if (!outDir.exists()) outDir.mkdirs();
+		File file = new File(outDir, "generated_scenario.xlsx");
+		generator.writeXlsx(scenario, file);
+		ExcelReaderWriter.ParsedInput pi = new ExcelReaderWriter().readWorkbook(file);
+		ScenarioGenerator.Scenario read = new ScenarioGenerator.Scenario(pi.sessions, pi.supervisors);
+		assertEquals(describeSessions(scenario), describeSessions(read));
+		assertEquals(describeSupervisors(scenario), describeSupervisors(read));
+	}
+
+	private static String describeSessions(ScenarioGenerator.Scenario scenario) {
+		StringBuilder sb = new StringBuilder();
+		for (SubjectSession s : scenario.sessions) {
+			sb.append(s.getId()).append('|').append(s.getSubjectName()).append('|').append(s.getDate()).append('|').append(s.getDay())
+				.append('|').append(s.getFrom()).append('|').append(s.getTo()).append('|').append(s.getPeriod()).append('|')
+				.append(s.getBuilding()).append('|').append(s.getSupervisorsRequired()).append('\n');
+		}
+		return sb.toString();
+	}
+
+	private static String describeSupervisors(ScenarioGenerator.Scenario scenario) {
+		StringBuilder sb = new StringBuilder();
+		for (Supervisor s : scenario.supervisors) {
+			sb.append(s.getName()).append('|').append(new java.util.TreeSet<>(s.getAvailableDays())).append('|').append(s.getLoadPercentage())
+				.append('|').append(s.getRole()).append('|').append(new java.util.TreeSet<>(s.getExcludedSubjects())).append('\n');
+		}
+		return sb.toString();
+	}
+}
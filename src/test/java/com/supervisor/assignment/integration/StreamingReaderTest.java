@@ -0,0 +1,288 @@
+package com.supervisor.assignment.integration;
+
+import com.supervisor.assignment.io.ExcelReaderWriter;
+import com.supervisor.assignment.model.AssignmentResult;
+import com.supervisor.assignment.model.SubjectSession;
+import com.supervisor.assignment.model.Supervisor;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingReaderTest {
+
+    @Test
+    public void streamedSheetsReadAsTheWorkbookDoes() throws Exception {
+        File outDir = new File("target/test-excels");
+        if (!outDir.exists()) outDir.mkdirs();
+        File file = new File(outDir, "streaming_cells.xlsx");
+
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            CellStyle dateStyle = wb.createCellStyle();
+            dateStyle.setDataFormat(wb.createDataFormat().getFormat("dd/mm/yyyy"));
+            CellStyle timeStyle = wb.createCellStyle();
+            timeStyle.setDataFormat(wb.createDataFormat().getFormat("h:mm"));
+            Sheet subjects = wb.createSheet("subjects"); // sheet names match ignoring case
+            subjects.createRow(0).createCell(0).setCellValue("Header below a note and an empty row");
+            Row header = subjects.createRow(2);
+            String[] names = {" Subject ", "Day", "Date", "Period", "From", "To", "Supervisors Required", "Building"};
+            for (int c = 0; c < names.length; c++) header.createCell(c).setCellValue(names[c]);
+
+            Row r3 = subjects.createRow(3);
+            r3.createCell(0).setCellValue("Math");
+            r3.createCell(1).setCellValue("Sunday");
+            r3.createCell(2).setCellValue(LocalDate.of(2025, 1, 5));
+            r3.getCell(2).setCellStyle(dateStyle);
+            r3.createCell(3).setCellValue("صباحي");
+            r3.createCell(4).setCellValue(8 / 24.0); // a time cell is read as its time of day
+            r3.getCell(4).setCellStyle(timeStyle);
+            r3.createCell(5).setCellValue("10:00");
+            r3.createCell(6).setCellValue(2);
+            r3.createCell(7).setCellValue(true);
+            subjects.createRow(4); // present but empty
+            Row r5 = subjects.createRow(5);
+            r5.createCell(0).setCellValue("Phys");
+            r5.createCell(1).setCellValue("monday");
+            r5.createCell(2).setCellValue("6/1/2025");
+            r5.createCell(3).setCellValue("مسائي");
+            r5.createCell(4).setCellValue("1:00 PM");
+            r5.createCell(5).setCellValue("3:00");
+            r5.createCell(7).setCellFormula("\"A\"&\"B\"");
+
+            Sheet supervisors = wb.createSheet("Supervisors");
+            Row sh = supervisors.createRow(0);
+            String[] supNames = {"Supervisor", "Available Days", "Load%", "Role", "Excluded Subjects"};
+            for (int c = 0; c < supNames.length; c++) sh.createCell(c).setCellValue(supNames[c]);
+            for (int i = 0; i < 3; i++) {
+                Row row = supervisors.createRow(i + 1);
+                row.createCell(0).setCellValue("Sup" + i);
+                row.createCell(1).setCellValue("Sunday, Monday");
+                if (i != 1) row.createCell(2).setCellValue(50.5 + i);
+                row.createCell(3).setCellValue(i == 0 ? "مشرف دور" : "ملاحظ");
+                row.createCell(4).setCellValue("Math, Phys");
+            }
+
+            Sheet assignments = wb.createSheet("التعيينات");
+            Row ah = assignments.createRow(0);
+            ah.createCell(0).setCellValue("معرف_المادة");
+            ah.createCell(1).setCellValue("المعينون");
+            Row a1 = assignments.createRow(1);
+            a1.createCell(0).setCellValue("S-3");
+            a1.createCell(1).setCellValue("Sup1, Sup2");
+            try (FileOutputStream fos = new FileOutputStream(file)) { wb.write(fos); }
+        }
+
+        ExcelReaderWriter rw = new ExcelReaderWriter();
+        ExcelReaderWriter.ParsedInput streamed = rw.readWorkbook(file, true);
+        ExcelReaderWriter.ParsedInput dom;
+        try (FileInputStream in = new FileInputStream(file); XSSFWorkbook wb = new XSSFWorkbook(in)) {
+            dom = rw.readWorkbook(wb, true);
+        }
+        assertEquals(describe(dom), describe(streamed));
+
+        assertEquals(2, streamed.sessions.size());
+        SubjectSession math = streamed.sessions.get(0);
+        assertEquals("S-3", math.getId());
+        assertEquals(LocalDate.of(2025, 1, 5), math.getDate());
+        assertEquals(LocalTime.of(8, 0), math.getFrom());
+        assertEquals(LocalTime.of(13, 0), streamed.sessions.get(1).getFrom());
+        assertEquals("true", math.getBuilding());
+        assertEquals(2, math.getSupervisorsRequired());
+        assertNull(streamed.sessions.get(1).getBuilding(), "formula cells read as empty");
+        assertEquals(100.0, streamed.supervisors.get(1).getLoadPercentage());
+        assertEquals(1, streamed.assignments.getSessionAssignments().size());
+        assertTrue(streamed.config.isPreserveManualOverrides());
+    }
+
+    @Test
+    public void headerSpellingVariantsResolveAndUnknownColumnsAreReported() throws Exception {
+        File outDir = new File("target/test-excels");
+        if (!outDir.exists()) outDir.mkdirs();
+        File file = new File(outDir, "header_variants.xlsx");
+
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet subjects = wb.createSheet("المواد");
+            Row header = subjects.createRow(0);
+            String[] names = {"subject", "ـاليومـ", "DATE", "الفتره", "من", "الي", "عدد_الملاحظين", "ملاحظات"};
+            for (int c = 0; c < names.length; c++) header.createCell(c).setCellValue(names[c]);
+            Row row = subjects.createRow(1);
+            String[] cells = {"Math", "Sunday", "2025-01-05", "صباحي", "08:00", "10:00", "2", "قاعة كبيرة"};
+            for (int c = 0; c < cells.length; c++) row.createCell(c).setCellValue(cells[c]);
+
+            Sheet supervisors = wb.createSheet("المراقبون");
+            Row sh = supervisors.createRow(0);
+            sh.createCell(0).setCellValue("الاسم");
+            sh.createCell(1).setCellValue("الأيام المتاحة");
+            Row s1 = supervisors.createRow(1);
+            s1.createCell(0).setCellValue("Sup0");
+            s1.createCell(1).setCellValue("Sunday");
+            try (FileOutputStream fos = new FileOutputStream(file)) { wb.write(fos); }
+        }
+
+        ExcelReaderWriter.ParsedInput pi = new ExcelReaderWriter().readWorkbook(file);
+        assertEquals(1, pi.sessions.size());
+        SubjectSession math = pi.sessions.get(0);
+        assertEquals("Math", math.getSubjectName());
+        assertEquals(LocalDate.of(2025, 1, 5), math.getDate());
+        assertEquals("10:00", math.getTo().toString());
+        assertEquals(2, math.getSupervisorsRequired());
+        assertEquals(java.util.Map.of("المواد", java.util.List.of("ملاحظات")), pi.unmatchedColumns);
+    }
+
+    @Test
+    public void formulaCellsReadTheirSavedResultsAndOptionallyTheEvaluators() throws Exception {
+        File outDir = new File("target/test-excels");
+        if (!outDir.exists()) outDir.mkdirs();
+        File file = new File(outDir, "formula_cells.xlsx");
+
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            CellStyle dateStyle = wb.createCellStyle();
+            dateStyle.setDataFormat(wb.createDataFormat().getFormat("yyyy-mm-dd"));
+            CellStyle timeStyle = wb.createCellStyle();
+            timeStyle.setDataFormat(wb.createDataFormat().getFormat("h:mm"));
+            FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+            Sheet subjects = wb.createSheet("المواد");
+            Row header = subjects.createRow(0);
+            String[] names = {"المادة", "اليوم", "التاريخ", "الفترة", "من", "إلى", "المبنى"};
+            for (int c = 0; c < names.length; c++) header.createCell(c).setCellValue(names[c]);
+            Row r1 = subjects.createRow(1);
+            r1.createCell(0).setCellValue("Math");
+            r1.createCell(1).setCellValue("الأحد");
+            r1.createCell(2).setCellValue(LocalDate.of(2025, 1, 5));
+            r1.getCell(2).setCellStyle(dateStyle);
+            r1.createCell(3).setCellValue("صباحي");
+            r1.createCell(4).setCellValue(8 / 24.0);
+            r1.getCell(4).setCellStyle(timeStyle);
+            r1.createCell(5).setCellFormula("E2+TIME(2,0,0)");
+            r1.getCell(5).setCellStyle(timeStyle);
+            r1.createCell(6).setCellFormula("\"A\"&\"B\"");
+            Row r2 = subjects.createRow(2);
+            r2.createCell(0).setCellValue("Phys");
+            r2.createCell(1).setCellValue("الاثنين");
+            r2.createCell(2).setCellFormula("C2+1");
+            r2.getCell(2).setCellStyle(dateStyle);
+            r2.createCell(3).setCellValue("صباحي");
+            r2.createCell(4).setCellValue("9:00");
+            r2.createCell(5).setCellValue("11:00");
+            evaluator.evaluateFormulaCell(r1.getCell(5)); // saved with a result, as Excel does
+            evaluator.evaluateFormulaCell(r2.getCell(2));
+            Row r3 = subjects.createRow(3);
+            r3.createCell(0).setCellValue("Chem");
+            r3.createCell(1).setCellValue("الأحد");
+            r3.createCell(2).setCellFormula("C2+7"); // saved without a result
+            r3.getCell(2).setCellStyle(dateStyle);
+            r3.createCell(3).setCellValue("مسائي");
+            r3.createCell(4).setCellValue("1:00");
+            r3.createCell(5).setCellValue("3:00");
+
+            Sheet supervisors = wb.createSheet("المراقبون");
+            Row sh = supervisors.createRow(0);
+            sh.createCell(0).setCellValue("الاسم");
+            sh.createCell(1).setCellValue("الأيام المتاحة");
+            Row s1 = supervisors.createRow(1);
+            s1.createCell(0).setCellValue("Sup0");
+            s1.createCell(1).setCellValue("الأحد");
+            try (FileOutputStream fos = new FileOutputStream(file)) { wb.write(fos); }
+        }
+
+        ExcelReaderWriter rw = new ExcelReaderWriter();
+        IllegalArgumentException unevaluated = assertThrows(IllegalArgumentException.class, () -> rw.readWorkbook(file));
+        assertTrue(unevaluated.getMessage().contains("row 4"), unevaluated.getMessage());
+
+        rw.setEvaluateFormulas(true);
+        ExcelReaderWriter.ParsedInput streamed = rw.readWorkbook(file);
+        ExcelReaderWriter.ParsedInput dom;
+        try (FileInputStream in = new FileInputStream(file); XSSFWorkbook wb = new XSSFWorkbook(in)) {
+            dom = rw.readWorkbook(wb, false);
+        }
+        assertEquals(describe(dom), describe(streamed));
+        assertEquals(3, streamed.sessions.size());
+        assertEquals(LocalTime.of(10, 0), streamed.sessions.get(0).getTo());
+        assertEquals("AB", streamed.sessions.get(0).getBuilding());
+        assertEquals(LocalDate.of(2025, 1, 6), streamed.sessions.get(1).getDate());
+        assertEquals(LocalDate.of(2025, 1, 12), streamed.sessions.get(2).getDate());
+    }
+
+    @Test
+    public void subjectRowsParsedInChunksKeepSheetOrderAndRowNumbers() throws Exception {
+        File outDir = new File("target/test-excels");
+        if (!outDir.exists()) outDir.mkdirs();
+        File good = new File(outDir, "chunked_subjects.xlsx");
+        File bad = new File(outDir, "chunked_subjects_bad.xlsx");
+        int rows = 5000;
+
+        for (File file : new File[]{good, bad}) {
+            try (XSSFWorkbook wb = new XSSFWorkbook()) {
+                Sheet subjects = wb.createSheet("المواد");
+                Row header = subjects.createRow(0);
+                String[] names = {"المادة", "اليوم", "التاريخ", "الفترة", "من", "إلى"};
+                for (int c = 0; c < names.length; c++) header.createCell(c).setCellValue(names[c]);
+                for (int r = 1; r <= rows; r++) {
+                    if (r % 7 == 0) continue; // gaps keep ids tied to sheet rows
+                    Row row = subjects.createRow(r);
+                    row.createCell(0).setCellValue("Subject " + r);
+                    row.createCell(1).setCellValue("الأحد");
+                    row.createCell(2).setCellValue(LocalDate.of(2025, 1, 5).plusDays(r % 30).toString());
+                    row.createCell(3).setCellValue("صباحي");
+                    row.createCell(4).setCellValue((8 + r % 3) + ":00");
+                    boolean broken = file == bad && (r == 1500 || r == 4500);
+                    if (!broken) row.createCell(5).setCellValue((10 + r % 3) + ":00");
+                }
+                Sheet supervisors = wb.createSheet("المراقبون");
+                Row sh = supervisors.createRow(0);
+                sh.createCell(0).setCellValue("الاسم");
+                sh.createCell(1).setCellValue("الأيام المتاحة");
+                Row s1 = supervisors.createRow(1);
+                s1.createCell(0).setCellValue("Sup0");
+                s1.createCell(1).setCellValue("الأحد");
+                try (FileOutputStream fos = new FileOutputStream(file)) { wb.write(fos); }
+            }
+        }
+
+        ExcelReaderWriter rw = new ExcelReaderWriter();
+        ExcelReaderWriter.ParsedInput pi = rw.readWorkbook(good);
+        assertEquals(rows - rows / 7, pi.sessions.size());
+        int expected = 1;
+        for (SubjectSession s : pi.sessions) {
+            if (expected % 7 == 0) expected++;
+            assertEquals("S-" + expected, s.getId());
+            assertEquals("Subject " + expected, s.getSubjectName());
+            expected++;
+        }
+        try (FileInputStream in = new FileInputStream(good); XSSFWorkbook wb = new XSSFWorkbook(in)) {
+            assertEquals(describe(pi), describe(rw.readWorkbook(wb, false)));
+        }
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> rw.readWorkbook(bad));
+        assertEquals("Subjects row 1501: required fields missing", e.getMessage());
+    }
+
+    private static String describe(ExcelReaderWriter.ParsedInput pi) {
+        StringBuilder sb = new StringBuilder();
+        for (SubjectSession s : pi.sessions) {
+            sb.append(s.getId()).append('|').append(s.getSubjectName()).append('|').append(s.getDate()).append('|').append(s.getDay())
+                .append('|').append(s.getFrom()).append('|').append(s.getTo()).append('|').append(s.getPeriod()).append('|')
+                .append(s.getBuilding()).append('|').append(s.getSupervisorsRequired()).append('\n');
+        }
+        for (Supervisor s : pi.supervisors) {
+            sb.append(s.getName()).append('|').append(new TreeSet<>(s.getAvailableDays())).append('|').append(s.getLoadPercentage())
+                .append('|').append(s.getRole()).append('|').append(new TreeSet<>(s.getExcludedSubjects())).append('\n');
+        }
+        if (pi.assignments == null) return sb.toString();
+        for (AssignmentResult.SessionAssignment sa : pi.assignments.getSessionAssignments()) {
+            sb.append(sa.getSession().getId()).append('|').append(sa.getAssignedSupervisors()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,87 @@
+package com.supervisor.assignment.integration;
+
+import com.supervisor.assignment.io.ExcelReaderWriter;
+import com.supervisor.assignment.io.WorkbookPipeline;
+import com.supervisor.assignment.logic.AssignmentEngine;
+import com.supervisor.assignment.model.AssignmentResult;
+import com.supervisor.assignment.template.ScenarioGenerator;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkbookPipelineTest {
+
+    @Test
+    public void pipelineWritesTheSameWorkbookAsReadThenWrite() throws Exception {
+        File outDir = new File("target/test-excels");
+        if (!outDir.exists()) outDir.mkdirs();
+        File input = new File(outDir, "pipeline_input.xlsx");
+        ScenarioGenerator generator = new ScenarioGenerator();
+        generator.setSessions(200);
+        generator.setSupervisors(60);
+        generator.writeXlsx(generator.generate(), input);
+
+        File viaPipeline = new File(outDir, "pipeline_output.xlsx");
+        AssignmentResult result;
+        try (WorkbookPipeline pipeline = new WorkbookPipeline(input)) {
+            pipeline.setXlsxOutput(viaPipeline);
+            assertEquals(200, pipeline.read().sessions.size());
+            result = pipeline.solve(new AssignmentEngine());
+            pipeline.write(result);
+            assertThrows(IllegalStateException.class, () -> pipeline.write(result));
+        }
+
+        ExcelReaderWriter rw = new ExcelReaderWriter();
+        ExcelReaderWriter.ParsedInput pi = rw.readWorkbook(input);
+        File viaFiles = new File(outDir, "pipeline_output_files.xlsx");
+        rw.writeOutput(input, viaFiles, new AssignmentEngine().assign(pi.sessions, pi.supervisors, pi.config));
+
+        try (FileInputStream a = new FileInputStream(viaPipeline); XSSFWorkbook piped = new XSSFWorkbook(a);
+             FileInputStream b = new FileInputStream(viaFiles); XSSFWorkbook direct = new XSSFWorkbook(b)) {
+            assertEquals(direct.getNumberOfSheets(), piped.getNumberOfSheets());
+            for (String name : new String[]{"التعيينات", "إجمالي المراقبين", "جداول المراقبين", "الاحتياط"}) {
+                Sheet expected = direct.getSheet(name);
+                Sheet actual = piped.getSheet(name);
+                assertEquals(expected.getLastRowNum(), actual.getLastRowNum(), name);
+                for (int r = 0; r <= expected.getLastRowNum(); r++) {
+                    if (expected.getRow(r) == null) continue;
+                    for (int c = 0; c < expected.getRow(r).getLastCellNum(); c++) {
+                        assertEquals(expected.getRow(r).getCell(c).toString(), actual.getRow(r).getCell(c).toString(), name + " " + r + ":" + c);
+                    }
+                }
+            }
+            assertEquals(result.getSessionAssignments().size(), piped.getSheet("التعيينات").getLastRowNum());
+        }
+
+        // The input sheets are copied from the package as they are, not parsed and written again
+        try (ZipFile in = new ZipFile(input); ZipFile out = new ZipFile(viaPipeline)) {
+            int copied = 0;
+            for (ZipEntry entry : Collections.list(in.entries())) {
+                if (!entry.getName().startsWith("xl/worksheets/")) continue;
+                ZipEntry written = out.getEntry(entry.getName());
+                assertNotNull(written, entry.getName());
+                try (InputStream a = in.getInputStream(entry); InputStream b = out.getInputStream(written)) {
+                    assertArrayEquals(a.readAllBytes(), b.readAllBytes(), entry.getName());
+                }
+                copied++;
+            }
+            assertEquals(2, copied);
+            // The output sheets refer to shared strings rather than repeating them inline
+            for (ZipEntry entry : Collections.list(out.entries())) {
+                if (!entry.getName().startsWith("xl/worksheets/") || in.getEntry(entry.getName()) != null) continue;
+                try (InputStream b = out.getInputStream(entry)) {
+                    assertFalse(new String(b.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8).contains("inlineStr"), entry.getName());
+                }
+            }
+        }
+    }
+}
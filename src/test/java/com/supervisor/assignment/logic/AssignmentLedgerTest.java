@@ -0,0 +1,128 @@
+package com.supervisor.assignment.logic;
+
+import com.supervisor.assignment.model.RoleType;
+import com.supervisor.assignment.template.ScenarioGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AssignmentLedgerTest {
+	@Test
+	public void sessionAndSupervisorIndexesAgreeThroughEveryChange() {
+		ScenarioGenerator generator = new ScenarioGenerator();
+		generator.setSessions(60);
+		generator.setSupervisors(20);
+		ScenarioGenerator.Scenario scenario = generator.generate();
+		double[] basePerUnit = new double[RoleType.values().length];
+		Arrays.fill(basePerUnit, 12.0);
+		CompiledProblem p = CompiledProblem.compile(scenario.sessions, scenario.sessions.size(), 0, scenario.supervisors, basePerUnit);
+		AssignmentLedger ledger = new AssignmentLedger(p);
+
+		// The same changes on plain lists
+		List<List<Integer>> primaries = lists(p.sessionCount);
+		List<List<Integer>> backups = lists(p.sessionCount);
+		List<List<Integer>> primarySessions = lists(p.supervisorCount);
+		List<List<Integer>> backupSessions = lists(p.supervisorCount);
+
+		Random random = new Random(11);
+		for (int step = 0; step < 2000; step++) {
+			int s = random.nextInt(p.sessionCount);
+			int sup = random.nextInt(p.supervisorCount);
+			switch (random.nextInt(5)) {
+				case 0:
+					ledger.addPrimary(s, sup);
+					primaries.get(s).add(sup);
+					primarySessions.get(sup).add(s);
+					break;
+				case 1:
+					ledger.addBackup(s, sup);
+					backups.get(s).add(sup);
+					backupSessions.get(sup).add(s);
+					break;
+				case 2:
+					if (primaries.get(s).isEmpty()) break;
+					int from = primaries.get(s).get(random.nextInt(primaries.get(s).size()));
+					ledger.replacePrimary(s, from, sup);
+					// Keeps the slot's position in the session; moves to the end of the new holder's list
+					primaries.get(s).set(primaries.get(s).indexOf(from), sup);
+					primarySessions.get(from).remove(Integer.valueOf(s));
+					primarySessions.get(sup).add(s);
+					break;
+				case 3:
+					if (backups.get(s).isEmpty()) break;
+					int backup = backups.get(s).get(random.nextInt(backups.get(s).size()));
+					ledger.replaceBackup(s, backup, sup);
+					backups.get(s).set(backups.get(s).indexOf(backup), sup);
+					backupSessions.get(backup).remove(Integer.valueOf(s));
+					backupSessions.get(sup).add(s);
+					break;
+				default:
+					if (backups.get(s).isEmpty()) break;
+					int removed = backups.get(s).get(random.nextInt(backups.get(s).size()));
+					ledger.removeBackup(s, removed);
+					backups.get(s).remove(Integer.valueOf(removed));
+					backupSessions.get(removed).remove(Integer.valueOf(s));
+					break;
+			}
+		}
+
+		for (int s = 0; s < p.sessionCount; s++) {
+			List<Integer> primary = new ArrayList<>();
+			for (int i = 0; i < ledger.primaryCount(s); i++) primary.add(ledger.primary(s, i));
+			assertEquals(primaries.get(s), primary, "primaries of session " + s);
+			List<Integer> backup = new ArrayList<>();
+			for (int i = 0; i < ledger.backupCount(s); i++) backup.add(ledger.backup(s, i));
+			assertEquals(backups.get(s), backup, "backups of session " + s);
+			List<String> names = new ArrayList<>();
+			for (int sup : primaries.get(s)) names.add(p.supervisorNames[sup]);
+			assertEquals(names, ledger.primaryNames(s));
+		}
+		for (int sup = 0; sup < p.supervisorCount; sup++) {
+			List<Integer> primary = new ArrayList<>();
+			for (int i = 0; i < ledger.primarySessionCount(sup); i++) primary.add(ledger.primarySession(sup, i));
+			assertEquals(primarySessions.get(sup), primary, "primary sessions of supervisor " + sup);
+			List<Integer> backup = new ArrayList<>();
+			for (int i = 0; i < ledger.backupSessionCount(sup); i++) backup.add(ledger.backupSession(sup, i));
+			assertEquals(backupSessions.get(sup), backup, "backup sessions of supervisor " + sup);
+			assertEquals(minutes(p, primarySessions.get(sup)), ledger.primaryMinutes(sup));
+			assertEquals(minutes(p, backupSessions.get(sup)), ledger.backupMinutes(sup));
+		}
+	}
+
+	@Test
+	public void excludePrimariesClearsOnlyTheSessionsHolders() {
+		ScenarioGenerator generator = new ScenarioGenerator();
+		generator.setSessions(5);
+		generator.setSupervisors(100);
+		ScenarioGenerator.Scenario scenario = generator.generate();
+		double[] basePerUnit = new double[RoleType.values().length];
+		Arrays.fill(basePerUnit, 12.0);
+		CompiledProblem p = CompiledProblem.compile(scenario.sessions, scenario.sessions.size(), 0, scenario.supervisors, basePerUnit);
+		AssignmentLedger ledger = new AssignmentLedger(p);
+		ledger.addPrimary(0, 3);
+		ledger.addPrimary(0, 70);
+		ledger.addPrimary(1, 5);
+		ledger.addBackup(0, 6);
+
+		long[] candidates = BitSets.create(p.supervisorCount);
+		for (int sup = 0; sup < p.supervisorCount; sup++) BitSets.set(candidates, sup);
+		ledger.excludePrimaries(0, candidates);
+		for (int sup = 0; sup < p.supervisorCount; sup++) {
+			assertEquals(sup != 3 && sup != 70, BitSets.get(candidates, sup), "supervisor " + sup);
+		}
+	}
+
+	private static List<List<Integer>> lists(int n) {
+		List<List<Integer>> lists = new ArrayList<>();
+		for (int i = 0; i < n; i++) lists.add(new ArrayList<>());
+		return lists;
+	}
+
+	private static int minutes(CompiledProblem p, List<Integer> sessions) {
+		int sum = 0;
+		for (int s : sessions) sum += p.sessionMinutes[s];
+		return sum;
+	}
+}
@@ -0,0 +1,124 @@
+package com.supervisor.assignment.logic;
+
+import com.supervisor.assignment.model.*;
+import com.supervisor.assignment.template.ScenarioGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CandidateFilterTest {
+	private static final int ROLE = RoleType.INVIGILATOR.ordinal();
+
+	private int sparse;
+	private int dense;
+
+	@Test
+	public void bitsetCandidatesAndPicksMatchTheObjectChecks() {
+		for (int perDay : new int[]{30, 400}) {
+			ScenarioGenerator generator = new ScenarioGenerator();
+			generator.setSeed(perDay);
+			generator.setSessions(1200);
+			generator.setSupervisors(150);
+			generator.setSessionsPerDay(perDay);
+			generator.setExclusionRate(0.1);
+			generator.setAvailability(0.6);
+			check(generator.generate());
+		}
+		// Both the bit-by-bit comparison and the heap walk were taken
+		assertTrue(sparse > 0 && dense > 0, sparse + " sparse, " + dense + " dense");
+	}
+
+	// Books one supervisor per session in input order and compares every step with the object form
+	// of each rule: role, availability, exclusion, overlap and the consecutive-days limit
+	private void check(ScenarioGenerator.Scenario scenario) {
+		List<SubjectSession> sessions = scenario.sessions;
+		List<Supervisor> supervisors = scenario.supervisors;
+		double[] basePerUnit = new double[RoleType.values().length];
+		Arrays.fill(basePerUnit, 12.0);
+		CompiledProblem p = CompiledProblem.compile(sessions, sessions.size(), 0, supervisors, basePerUnit);
+		RoleSolver solver = new RoleSolver(p, ROLE, new AssignmentLedger(p), new Config(), p.supervisorNameRank, new SolveControl(null, null, 0));
+		SolverState st = solver.state();
+		long[] out = BitSets.create(p.supervisorCount);
+		List<List<SubjectSession>> booked = new ArrayList<>();
+		for (int sup = 0; sup < supervisors.size(); sup++) booked.add(new ArrayList<>());
+		int[] minutes = new int[supervisors.size()];
+
+		for (int s = 0; s < sessions.size(); s++) {
+			SubjectSession session = sessions.get(s);
+			List<Integer> strict = new ArrayList<>();
+			List<Integer> relaxed = new ArrayList<>();
+			for (int sup = 0; sup < supervisors.size(); sup++) {
+				Supervisor supervisor = supervisors.get(sup);
+				if (supervisor.getRole() != RoleType.INVIGILATOR || overlaps(booked.get(sup), session)
+						|| !withinConsecutiveDaysLimit(booked.get(sup), session.getDate())) continue;
+				relaxed.add(sup);
+				if (supervisor.getAvailableDays().contains(session.getDay()) && !supervisor.getExcludedSubjects().contains(session.getSubjectName())) {
+					strict.add(sup);
+				}
+			}
+
+			st.freeCandidates(s, ROLE, p.availableMask(p.sessionDay[s]), p.excludedMask[p.sessionSubject[s]], out);
+			assertEquals(strict, bits(out), "strict candidates of " + session.getId());
+			List<Integer> pool = strict;
+			if (strict.isEmpty()) {
+				st.freeCandidates(s, ROLE, null, null, out);
+				assertEquals(relaxed, bits(out), "relaxed candidates of " + session.getId());
+				pool = relaxed;
+			}
+			if (pool.size() * 16 < st.heap().size()) sparse++;
+			else dense++;
+
+			int chosen = solver.pickBest(st, out, s, new SolveMeter());
+			assertEquals(best(pool, supervisors, booked, minutes, p, session), chosen, "pick for " + session.getId());
+			if (chosen == CompiledProblem.NONE) continue;
+			st.book(chosen, s);
+			booked.get(chosen).add(session);
+			minutes[chosen] += p.sessionMinutes[s];
+		}
+	}
+
+	// Under-cap supervisors first, then load ratio, adjacency preference and name
+	private static int best(List<Integer> pool, List<Supervisor> supervisors, List<List<SubjectSession>> booked, int[] minutes,
+			CompiledProblem p, SubjectSession session) {
+		Comparator<Integer> order = Comparator
+			.comparing((Integer sup) -> ratio(sup, minutes, p) > SolverState.FAIRNESS_CAP)
+			.thenComparingDouble(sup -> ratio(sup, minutes, p))
+			.thenComparingInt(sup -> adjacent(booked.get(sup), session) ? 0 : 1)
+			.thenComparing(sup -> supervisors.get(sup).getName());
+		return pool.stream().min(order).orElse(CompiledProblem.NONE);
+	}
+
+	private static double ratio(int sup, int[] minutes, CompiledProblem p) {
+		return (minutes[sup] / 60.0) / Math.max(0.1, p.expectedHours[sup]);
+	}
+
+	private static boolean overlaps(List<SubjectSession> booked, SubjectSession s) {
+		for (SubjectSession t : booked) {
+			if (t.getDate().equals(s.getDate()) && TimeUtil.overlaps(t.getFrom(), t.getTo(), s.getFrom(), s.getTo())) return true;
+		}
+		return false;
+	}
+
+	private static boolean adjacent(List<SubjectSession> booked, SubjectSession s) {
+		for (SubjectSession t : booked) {
+			if (t.getDate().equals(s.getDate()) && (t.getTo().equals(s.getFrom()) || t.getFrom().equals(s.getTo()))) return true;
+		}
+		return false;
+	}
+
+	private static boolean withinConsecutiveDaysLimit(List<SubjectSession> booked, LocalDate d) {
+		Set<LocalDate> dates = new HashSet<>();
+		for (SubjectSession t : booked) dates.add(t.getDate());
+		boolean prev1 = dates.contains(d.minusDays(1));
+		return !(prev1 && (dates.contains(d.minusDays(2)) || dates.contains(d.plusDays(1))));
+	}
+
+	private static List<Integer> bits(long[] words) {
+		List<Integer> list = new ArrayList<>();
+		for (int i = BitSets.nextSetBit(words, 0); i >= 0; i = BitSets.nextSetBit(words, i + 1)) list.add(i);
+		return list;
+	}
+}
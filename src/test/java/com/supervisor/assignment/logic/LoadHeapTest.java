@@ -0,0 +1,78 @@
+package com.supervisor.assignment.logic;
+
+import com.supervisor.assignment.model.RoleType;
+import com.supervisor.assignment.template.ScenarioGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadHeapTest {
+	@Test
+	public void scanVisitsMembersByTierThenRatioThenNameAfterEveryUpdate() {
+		ScenarioGenerator generator = new ScenarioGenerator();
+		generator.setSessions(50);
+		generator.setSupervisors(120);
+		ScenarioGenerator.Scenario scenario = generator.generate();
+		double[] basePerUnit = new double[RoleType.values().length];
+		Arrays.fill(basePerUnit, 12.0);
+		CompiledProblem p = CompiledProblem.compile(scenario.sessions, scenario.sessions.size(), 0, scenario.supervisors, basePerUnit);
+
+		Random random = new Random(7);
+		for (RoleType role : RoleType.values()) {
+			int[] members = p.roleMembers[role.ordinal()];
+			if (members.length == 0) continue;
+			// A reversed name order, so ties are not broken by index
+			int[] nameRank = new int[p.supervisorCount];
+			for (int i = 0; i < nameRank.length; i++) nameRank[i] = nameRank.length - 1 - p.supervisorNameRank[i];
+			LoadHeap heap = new LoadHeap(p, role.ordinal(), nameRank);
+			assertEquals(members.length, heap.size());
+
+			double[] ratio = new double[p.supervisorCount];
+			for (int step = 0; step < 500; step++) {
+				int sup = members[random.nextInt(members.length)];
+				// Few distinct values, so equal loads and both sides of the fairness cap are common
+				ratio[sup] = random.nextInt(8) * 0.25;
+				heap.update(sup, ratio[sup]);
+
+				Integer[] expected = new Integer[members.length];
+				for (int i = 0; i < members.length; i++) expected[i] = members[i];
+				Arrays.sort(expected, Comparator
+					.comparing((Integer s) -> ratio[s] > SolverState.FAIRNESS_CAP)
+					.thenComparingDouble(s -> ratio[s])
+					.thenComparingInt(s -> nameRank[s]));
+				List<Integer> scanned = new ArrayList<>();
+				heap.scan();
+				for (int s = heap.next(); s >= 0; s = heap.next()) scanned.add(s);
+				assertEquals(Arrays.asList(expected), scanned, role + " after step " + step);
+			}
+		}
+	}
+
+	@Test
+	public void comparesLoadByTierBeforeRatio() {
+		ScenarioGenerator generator = new ScenarioGenerator();
+		generator.setSessions(10);
+		generator.setSupervisors(10);
+		generator.setFloorSupervisorShare(0);
+		generator.setMaintenanceShare(0);
+		ScenarioGenerator.Scenario scenario = generator.generate();
+		double[] basePerUnit = new double[RoleType.values().length];
+		Arrays.fill(basePerUnit, 12.0);
+		CompiledProblem p = CompiledProblem.compile(scenario.sessions, scenario.sessions.size(), 0, scenario.supervisors, basePerUnit);
+		LoadHeap heap = new LoadHeap(p, RoleType.INVIGILATOR.ordinal(), p.supervisorNameRank);
+		int a = p.roleMembers[RoleType.INVIGILATOR.ordinal()][0];
+		int b = p.roleMembers[RoleType.INVIGILATOR.ordinal()][1];
+
+		heap.update(a, SolverState.FAIRNESS_CAP);
+		heap.update(b, 0.5);
+		assertTrue(heap.compareLoad(b, a) < 0);
+		heap.update(b, SolverState.FAIRNESS_CAP + 0.01);
+		// Over the cap ranks after any supervisor at or under it
+		assertTrue(heap.compareLoad(a, b) < 0);
+		heap.update(a, SolverState.FAIRNESS_CAP + 0.01);
+		assertTrue(heap.sameLoad(a, b));
+		assertEquals(p.supervisorNameRank[a] < p.supervisorNameRank[b], heap.before(a, b));
+	}
+}